@@ -14,7 +14,16 @@ public final class Crc24 {
      * des messages ADS-B
      */
     public static final int GENERATOR = 0xFFF409;
+    private static final int CRC_MASK = (1 << CRC_BITS) - 1;
+    private static final int BYTE_MASK = (1 << Byte.SIZE) - 1;
+
+    /**
+     * SLICES représente le nombre d'octets traités à la fois par la méthode de découpage
+     * (slicing-by-8) : tables[k][i] contient le CRC24 de l'octet i suivi de k octets nuls
+     */
+    private static final int SLICES = Long.BYTES;
     private final int[] table;
+    private final int[][] tables;
 
     /**
      * Construit un calculateur de CRC24 utilisant le générateur dont
@@ -24,6 +33,14 @@ public final class Crc24 {
      */
     public Crc24(int generator) {
         table = buildTable(generator);
+        tables = new int[SLICES][];
+        tables[0] = table;
+        for (int k = 1; k < SLICES; k++) {
+            tables[k] = new int[table.length];
+            for (int i = 0; i < table.length; i++) {
+                tables[k][i] = nextByte(tables[k - 1][i], 0);
+            }
+        }
     }
 
     /**
@@ -34,15 +51,62 @@ public final class Crc24 {
      */
     public int crc(byte[] message) {
         int crc = 0;
-        for (var bit : message) {
-            crc = ((crc << Byte.SIZE) | Byte.toUnsignedInt(bit)) ^
-                    table[Bits.extractUInt(crc, CRC_BITS - Byte.SIZE, Byte.SIZE)];
+        int i = 0;
+        for (; i + SLICES <= message.length; i += SLICES) {
+            long word = 0;
+            for (int j = 0; j < SLICES; j++) {
+                word = (word << Byte.SIZE) | Byte.toUnsignedInt(message[i + j]);
+            }
+            crc = crcOfSlice(crc, word, SLICES);
         }
-        for (int i = 0; i < 3; i++) {
-            crc = (crc << Byte.SIZE)
-                    ^ table[Bits.extractUInt(crc, CRC_BITS - Byte.SIZE, Byte.SIZE)];
+        for (; i < message.length; i++) {
+            crc = nextByte(crc, Byte.toUnsignedInt(message[i]));
         }
-        return Bits.extractUInt(crc, 0, CRC_BITS);
+        return crc;
+    }
+
+    /**
+     * Retourne le CRC24 du message de 112 bits donné sous la forme de deux valeurs de type long,
+     * tel que retourné par crc pour le tableau de 14 octets correspondant.
+     *
+     * @param high les 64 premiers bits du message, le premier étant le bit de poids fort
+     * @param low  les 48 derniers bits du message, dans les 48 bits de poids faible
+     * @return le CRC24 du message de 112 bits donné
+     */
+    public int crc(long high, long low) {
+        return crcOfSlice(crcOfSlice(0, high, Long.BYTES), low, 6);
+    }
+
+    /**
+     * Retourne le CRC24 du message de 56 bits donné, tel que retourné par crc pour le tableau de
+     * 7 octets correspondant.
+     *
+     * @param message les 56 bits du message, dans les 56 bits de poids faible
+     * @return le CRC24 du message de 56 bits donné
+     */
+    public int crc(long message) {
+        return crcOfSlice(0, message, 7);
+    }
+
+    /**
+     * Retourne le CRC24 obtenu en ajoutant, au message dont le CRC24 est donné, les size octets
+     * (au plus 8) de poids faible de word, par la méthode de découpage.
+     */
+    private int crcOfSlice(int crc, long word, int size) {
+        word ^= (long) crc << (Byte.SIZE * size - CRC_BITS);
+        int result = 0;
+        for (int k = 0; k < size; k++) {
+            result ^= tables[k][(int) (word >>> (Byte.SIZE * k)) & BYTE_MASK];
+        }
+        return result;
+    }
+
+    /**
+     * Retourne le CRC24 obtenu en ajoutant l'octet donné au message dont le CRC24 est donné.
+     */
+    private int nextByte(int crc, int b) {
+        return ((crc << Byte.SIZE) & CRC_MASK)
+                ^ table[((crc >>> (CRC_BITS - Byte.SIZE)) ^ b) & BYTE_MASK];
     }
 
 
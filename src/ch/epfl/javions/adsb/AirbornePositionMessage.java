@@ -43,6 +43,16 @@ public record AirbornePositionMessage(long timeStampNs, IcaoAddress icaoAddress,
     private static final int SIZE_BITS_1 = 7;
     private static final int SIZE_BITS_2 = 4;
 
+    /**
+     * ALTITUDES contient, pour chacune des 4096 valeurs de l'attribut ALT, l'altitude
+     * correspondante en mètres, ou NaN si elle est invalide
+     */
+    private static final double[] ALTITUDES = new double[1 << SIZE_ALT];
+
+    static {
+        for (int alt = 0; alt < ALTITUDES.length; alt++) ALTITUDES[alt] = computeAltitude(alt);
+    }
+
     /**
      * @throws NullPointerException     si l'adresse ICAO est nulle
      * @throws IllegalArgumentException si l'horodatage est négatif, si la parité n'est pas 0 ou 1,
@@ -62,17 +72,46 @@ public record AirbornePositionMessage(long timeStampNs, IcaoAddress icaoAddress,
      * @return le message ADS-B de positionnement en vol construit.
      */
     public static AirbornePositionMessage of(RawMessage rawMessage) {
+        MessageRecorder recorder = MessageRecorder.current();
+        return decode(rawMessage, recorder) ? (AirbornePositionMessage) recorder.take() : null;
+    }
 
-        long timeStampNs = rawMessage.timeStampNs();
-        IcaoAddress icaoAddress = rawMessage.icaoAddress();
-        double altitude = 0;
-        int alt = extractUInt(rawMessage.payload(), START_ALT, SIZE_ALT);
-        int FORMAT = extractUInt(rawMessage.payload(), START_FORMAT, SIZE_FORMAT);
-        double LAT_CPR = extractUInt(rawMessage.payload(), START_CPR_LATITUDE, LOCALISATION_BIT_SIZE)
-                * DIVISOR;
-        double LON_CPR = extractUInt(rawMessage.payload(), START_CPR_LONGITUDE, LOCALISATION_BIT_SIZE)
-                * DIVISOR;
+    /**
+     * Analyse le message ADS-B brut donné comme un message de positionnement en vol et transmet
+     * ses attributs au destinataire donné, sans rien allouer. Retourne faux, sans rien transmettre,
+     * si l'altitude est invalide.
+     */
+    static boolean decode(RawMessage rawMessage, MessageSink sink) {
+        long payload = rawMessage.payload();
+        double altitude = ALTITUDES[extractUInt(payload, START_ALT, SIZE_ALT)];
+        if (Double.isNaN(altitude)) return false;
+        int FORMAT = extractUInt(payload, START_FORMAT, SIZE_FORMAT);
+        double LAT_CPR = extractUInt(payload, START_CPR_LATITUDE, LOCALISATION_BIT_SIZE) * DIVISOR;
+        double LON_CPR = extractUInt(payload, START_CPR_LONGITUDE, LOCALISATION_BIT_SIZE) * DIVISOR;
+
+        sink.onPosition(rawMessage.icaoAddress(), rawMessage.timeStampNs(), altitude, FORMAT,
+                LON_CPR, LAT_CPR);
+        return true;
+    }
 
+    /**
+     * Retourne l'altitude, en mètres, correspondant à la valeur donnée de l'attribut ALT de 12 bits
+     * d'un message de positionnement en vol, ou NaN si elle est invalide. Cette altitude est lue
+     * dans une table calculée une fois pour toutes.
+     *
+     * @param alt la valeur de l'attribut ALT
+     * @return l'altitude correspondante, en mètres, ou NaN si elle est invalide
+     * @throws IndexOutOfBoundsException si la valeur n'est pas comprise entre 0 et 4095
+     */
+    public static double altitude(int alt) {
+        return ALTITUDES[Objects.checkIndex(alt, ALTITUDES.length)];
+    }
+
+    /**
+     * Calcule l'altitude, en mètres, correspondant à la valeur donnée de l'attribut ALT en
+     * fonction de la valeur de son bit d'index 4 (Q), ou NaN si elle est invalide.
+     */
+    private static double computeAltitude(int alt) {
         int Q = extractUInt(alt, Q_OFFSET, 1);
         if (Q == 1) {
             // On coupe alt en deux parties pour supprimer le Q bit puis on les recolle ensemble
@@ -80,25 +119,20 @@ public record AirbornePositionMessage(long timeStampNs, IcaoAddress icaoAddress,
             int bits2 = extractUInt(alt, START_BITS_2, SIZE_BITS_2);
 
             alt = (bits1 << Q_OFFSET) | bits2;
-            altitude = Units.convertFrom(-1000 + (alt * 25), Units.Length.FOOT);
+            return Units.convertFrom(-1000 + (alt * 25), Units.Length.FOOT);
         }
 
-        if (Q == 0) {
-            int lsbGroupe = extractUInt(unTangler(alt), START_BIT_LSB_GROUP, SIZE_BIT_LSB_GROUP);
-            lsbGroupe = greyTranscription(lsbGroupe, SIZE_BIT_LSB_GROUP);
-            int msbGroupe = extractUInt(unTangler(alt), START_BIT_MSB_GROUP, SIZE_BIT_MSB_GROUP);
-            msbGroupe = greyTranscription(msbGroupe, SIZE_BIT_MSB_GROUP);
+        int lsbGroupe = extractUInt(unTangler(alt), START_BIT_LSB_GROUP, SIZE_BIT_LSB_GROUP);
+        lsbGroupe = greyTranscription(lsbGroupe, SIZE_BIT_LSB_GROUP);
+        int msbGroupe = extractUInt(unTangler(alt), START_BIT_MSB_GROUP, SIZE_BIT_MSB_GROUP);
+        msbGroupe = greyTranscription(msbGroupe, SIZE_BIT_MSB_GROUP);
 
-            if (lsbGroupe == 0 || lsbGroupe == 5 || lsbGroupe == 6) return null;
-            if (lsbGroupe == 7) lsbGroupe = 5;
-            if (msbGroupe % 2 != 0) lsbGroupe = 6 - lsbGroupe;
-
-            altitude = Units.convertFrom(-1300 + (lsbGroupe * 100) + (msbGroupe * 500),
-                    Units.Length.FOOT);
-        }
+        if (lsbGroupe == 0 || lsbGroupe == 5 || lsbGroupe == 6) return Double.NaN;
+        if (lsbGroupe == 7) lsbGroupe = 5;
+        if (msbGroupe % 2 != 0) lsbGroupe = 6 - lsbGroupe;
 
-        return new AirbornePositionMessage(timeStampNs, icaoAddress, altitude, FORMAT, LON_CPR,
-                LAT_CPR);
+        return Units.convertFrom(-1300 + (lsbGroupe * 100) + (msbGroupe * 500),
+                Units.Length.FOOT);
     }
 
     private static int unTangler(int alt) {
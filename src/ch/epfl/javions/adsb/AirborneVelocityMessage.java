@@ -63,11 +63,22 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
      * déterminés.
      */
     public static AirborneVelocityMessage of(RawMessage rawMessage) {
+        MessageRecorder recorder = MessageRecorder.current();
+        return decode(rawMessage, recorder) ? (AirborneVelocityMessage) recorder.take() : null;
+    }
 
-        int subType = extractUInt(rawMessage.payload(), START_SUB_TYPE, SIZE_SUB_TYPE);
-        int data = extractUInt(rawMessage.payload(), START_DATA, SIZE_DATA);
+    /**
+     * Analyse le message ADS-B brut donné comme un message de vitesse en vol et transmet ses
+     * attributs au destinataire donné, sans rien allouer. Retourne faux, sans rien transmettre,
+     * si le sous-type est invalide ou si la vitesse ou la direction ne peuvent pas être
+     * déterminées.
+     */
+    static boolean decode(RawMessage rawMessage, MessageSink sink) {
+        long payload = rawMessage.payload();
+        int subType = extractUInt(payload, START_SUB_TYPE, SIZE_SUB_TYPE);
+        int data = extractUInt(payload, START_DATA, SIZE_DATA);
 
-        if (!(subType == 1 || subType == 2 || subType == 3 || subType == 4)) return null;
+        if (!(subType == 1 || subType == 2 || subType == 3 || subType == 4)) return false;
 
         double speedLength = 0;
         double trackOrHeading = 0;
@@ -81,7 +92,7 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
                     SIZE_DIRECTION_NORTH_SOUTH);
             int speedNorthSouth = extractUInt(data, START_SPEED_NORTH_SOUTH, SIZE_SPEED_NORTH_SOUTH);
 
-            if (speedNorthSouth == 0 || speedEastWest == 0) return null;
+            if (speedNorthSouth == 0 || speedEastWest == 0) return false;
 
             speedNorthSouth--;
             speedEastWest--;
@@ -98,21 +109,22 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
             speedLength = subType == 1 ? Units.convertFrom(speedLength, Units.Speed.KNOT) :
                     Units.convertFrom(4 * speedLength, Units.Speed.KNOT);
 
-            if (Double.isNaN(speedLength)) return null;
+            if (Double.isNaN(speedLength)) return false;
         }
 
         if (subType == 3 || subType == 4) {
             int airSpeed = extractUInt(data, START_AIR_SPEED, SIZE_AIR_SPEED);
             int heading = extractUInt(data, START_HEADING, SIZE_HEADING);
 
-            if (!testBit(data, SUBTYPE_SPECIFIC_INDEX) || airSpeed-- == 0) return null;
+            if (!testBit(data, SUBTYPE_SPECIFIC_INDEX) || airSpeed-- == 0) return false;
             trackOrHeading = Units.convertFrom(Math.scalb(heading, -10), Units.Angle.TURN);
 
             // Si le subType n'est pas 3, le subType est obligatoirement 4
             speedLength = subType == 3 ? Units.convertFrom(airSpeed, Units.Speed.KNOT) :
                     Units.convertFrom(4 * airSpeed, Units.Speed.KNOT);
         }
-        return new AirborneVelocityMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(),
-                speedLength, trackOrHeading);
+        sink.onVelocity(rawMessage.icaoAddress(), rawMessage.timeStampNs(), speedLength,
+                trackOrHeading);
+        return true;
     }
 }
\ No newline at end of file
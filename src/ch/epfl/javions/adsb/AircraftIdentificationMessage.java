@@ -42,37 +42,47 @@ public record AircraftIdentificationMessage(long timeStampNs, IcaoAddress icaoAd
      * un des caractères de l'indicatif est invalide
      */
     public static AircraftIdentificationMessage of(RawMessage rawMessage) {
+        MessageRecorder recorder = MessageRecorder.current();
+        return decode(rawMessage, recorder)
+                ? (AircraftIdentificationMessage) recorder.take()
+                : null;
+    }
 
-        StringBuilder indicator = new StringBuilder();
-        int ca = Bits.extractUInt(rawMessage.payload(), START_BIT_CA, SIZE_CA);
+    /**
+     * Analyse le message ADS-B brut donné comme un message d'identification et transmet ses
+     * attributs au destinataire donné, seuls l'indicatif et sa chaîne étant alloués. Retourne
+     * faux, sans rien transmettre, si au moins un des caractères de l'indicatif est invalide.
+     */
+    static boolean decode(RawMessage rawMessage, MessageSink sink) {
+        long payload = rawMessage.payload();
+        int ca = Bits.extractUInt(payload, START_BIT_CA, SIZE_CA);
         int category = ((14 - rawMessage.typeCode()) << 4) | ca;
 
+        char[] indicator = new char[Long.BYTES];
+        int length = 0;
         for (int i = 0; i < Long.BYTES; i++) {
-            if (character(Bits.extractUInt(rawMessage.payload(),
-                    START_BIT_FIRST_CHARACTER - i * 6, SIZE_FIRST_CHARACTER)) == null)
-                return null;
+            int c = character(Bits.extractUInt(payload,
+                    START_BIT_FIRST_CHARACTER - i * 6, SIZE_FIRST_CHARACTER));
+            if (c < 0) return false;
 
-            indicator.append(character(Bits.extractUInt(rawMessage.payload(),
-                    START_BIT_FIRST_CHARACTER - i * 6, SIZE_FIRST_CHARACTER)));
+            indicator[i] = (char) c;
+            if (c != ' ') length = i + 1;
         }
 
-
-
-        return new AircraftIdentificationMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(),
-                category, new CallSign(indicator.toString().stripTrailing()));
+        sink.onIdentification(rawMessage.icaoAddress(), rawMessage.timeStampNs(), category,
+                new CallSign(new String(indicator, 0, length)));
+        return true;
     }
 
     /**
      * Converti un nombre en un caractère
      * @param val le chiffre qui est transformé en caractère
-     * @return le caractère en question
+     * @return le caractère en question, ou -1 s'il est invalide
      */
-    private static Character character(int val) {
-        char output;
-        if (val == 32) output = ' ';
-        else if (val >= 48 && val <= 57) output = (char) val;
-        else if (val >= 1 && val <= 26) output = (char) (val + 64);
-        else return null;
-        return output;
+    private static int character(int val) {
+        if (val == 32) return ' ';
+        else if (val >= 48 && val <= 57) return val;
+        else if (val >= 1 && val <= 26) return val + 64;
+        else return -1;
     }
-}
\ No newline at end of file
+}
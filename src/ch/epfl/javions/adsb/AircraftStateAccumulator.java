@@ -1,6 +1,8 @@
 package ch.epfl.javions.adsb;
 
 import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Units;
+import ch.epfl.javions.aircraft.IcaoAddress;
 
 import java.time.Duration;
 import java.util.Objects;
@@ -9,17 +11,52 @@ import java.util.Objects;
 /**
  * Représente un « accumulateur d'état d'aéronef », c'est-à-dire un objet accumulant les messages
  * ADS-B provenant d'un seul aéronef afin de déterminer son état au cours du temps.
+ * <p>
+ * L'accumulateur est aussi un destinataire de messages, auquel MessageParser peut transmettre
+ * directement les attributs des messages bruts de l'aéronef sans créer d'enregistrement. Les
+ * attributs des deux derniers messages de positionnement sont donc mémorisés dans des champs.
+ * <p>
+ * La position est décodée globalement dès qu'une paire de messages pair et impair de moins de 10
+ * secondes le permet. Sinon, par exemple lors d'un changement de bande de latitude, elle est
+ * décodée localement, relativement à la dernière position si celle-ci date de moins de 10
+ * secondes, ou relativement à la position du récepteur, si elle a été donnée, pour la toute
+ * première position de l'aéronef. Une position décodée localement n'est acceptée que si elle est
+ * atteignable depuis sa référence : la dernière position en volant à au plus MAX_SPEED, ou le
+ * récepteur à moins de MAX_RECEIVER_RANGE. Une position rejetée oublie la dernière position, de
+ * sorte que la suivante ne peut être que décodée globalement, et qu'une position erronée ne sert
+ * jamais de référence aux suivantes.
  *
  * @param <T> paramètre de type de AircraftStateAccumulator
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
  */
-public final class AircraftStateAccumulator<T extends AircraftStateSetter> {
+public final class AircraftStateAccumulator<T extends AircraftStateSetter>
+        implements MessageSink {
 
     private final static long MAX_TIME_DIFF_NS = Duration.ofSeconds(10).toNanos();
+
+    /**
+     * MAX_SPEED représente la vitesse au-delà de laquelle un déplacement est considéré comme
+     * impossible, POSITION_TOLERANCE la distance toujours admise entre deux positions pour tenir
+     * compte de la résolution du codage CPR, et MAX_RECEIVER_RANGE la distance au-delà de laquelle
+     * un aéronef ne peut pas être reçu, inférieure à la demi-zone (environ 3°) en deçà de laquelle
+     * le décodage local est correct
+     */
+    private static final double MAX_SPEED = 3_600 * Units.Speed.KILOMETER_PER_HOUR;
+    private static final double POSITION_TOLERANCE = 500 * Units.Length.METER;
+    private static final double MAX_RECEIVER_RANGE = 300 * Units.Length.KILOMETER;
+    private static final double EARTH_RADIUS = 6_371 * Units.Length.KILOMETER;
+    private static final double NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
     private final T stateSetter;
-    private AirbornePositionMessage positionEven;
-    private AirbornePositionMessage positionOdd;
+    private static final int EVEN = 0;
+    private static final int ODD = 1;
+    private final long[] positionTimeStampsNs = {-1, -1};
+    private final double[] positionXs = new double[2];
+    private final double[] positionYs = new double[2];
+    private final GeoPos receiverPosition;
+    private GeoPos lastPosition;
+    private long lastPositionTimeStampNs;
+    private boolean positioned;
 
 
     /**
@@ -32,6 +69,22 @@ public final class AircraftStateAccumulator<T extends AircraftStateSetter> {
     public AircraftStateAccumulator(T stateSetter) {
         Objects.requireNonNull(stateSetter);
         this.stateSetter = stateSetter;
+        this.receiverPosition = null;
+    }
+
+    /**
+     * Construit un accumulateur d'état d'aéronef associé à l'état modifiable donné, décodant la
+     * première position de l'aéronef relativement à la position du récepteur donnée, sans attendre
+     * une paire de messages. Cette position n'est acceptée que si l'aéronef se trouve à moins de
+     * MAX_RECEIVER_RANGE du récepteur.
+     *
+     * @param stateSetter      l'état modifiable associé à l'accumulateur
+     * @param receiverPosition la position du récepteur
+     * @throws NullPointerException si le stateSetter ou la position du récepteur est nul
+     */
+    public AircraftStateAccumulator(T stateSetter, GeoPos receiverPosition) {
+        this.stateSetter = Objects.requireNonNull(stateSetter);
+        this.receiverPosition = Objects.requireNonNull(receiverPosition);
     }
 
 
@@ -56,34 +109,105 @@ public final class AircraftStateAccumulator<T extends AircraftStateSetter> {
      * @param message le message ADS-B à traiter
      */
     public void update(Message message) {
-
-        stateSetter.setLastMessageTimeStampNs(message.timeStampNs());
         switch (message) {
-            case AircraftIdentificationMessage aim -> {
-                stateSetter.setCategory(aim.category());
-                stateSetter.setCallSign(aim.callSign());
-            }
+            case AircraftIdentificationMessage aim -> onIdentification(aim.icaoAddress(),
+                    aim.timeStampNs(), aim.category(), aim.callSign());
 
-            case AirbornePositionMessage apm -> {
-                stateSetter.setAltitude(apm.altitude());
-                if (apm.parity() == 1) positionOdd = apm;
-                else positionEven = apm;
-                if (positionEven != null && positionOdd != null && isValidPosition()) {
-                    GeoPos position = CprDecoder.decodePosition(positionEven.x(), positionEven.y(),
-                            positionOdd.x(), positionOdd.y(), apm.parity());
-                    if (position != null) stateSetter.setPosition(position);
-                }
-            }
+            case AirbornePositionMessage apm -> onPosition(apm.icaoAddress(), apm.timeStampNs(),
+                    apm.altitude(), apm.parity(), apm.x(), apm.y());
 
-            case AirborneVelocityMessage avm -> {
-                stateSetter.setVelocity(avm.speed());
-                stateSetter.setTrackOrHeading(avm.trackOrHeading());
-            }
+            case AirborneVelocityMessage avm -> onVelocity(avm.icaoAddress(), avm.timeStampNs(),
+                    avm.speed(), avm.trackOrHeading());
 
             default -> throw new Error();
         }
     }
 
+    /**
+     * Met à jour l'état modifiable en fonction du message d'identification et de catégorie dont
+     * les attributs sont donnés, en appelant setLastMessageTimeStampNs, setCategory et setCallSign.
+     *
+     * @param icaoAddress l'adresse OACI de l'expéditeur du message, ignorée
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param category    la catégorie de l'aéronef
+     * @param callSign    l'indicatif de l'aéronef
+     */
+    @Override
+    public void onIdentification(IcaoAddress icaoAddress, long timeStampNs, int category,
+                                 CallSign callSign) {
+        stateSetter.setLastMessageTimeStampNs(timeStampNs);
+        stateSetter.setCategory(category);
+        stateSetter.setCallSign(callSign);
+    }
+
+    /**
+     * Met à jour l'état modifiable en fonction du message de positionnement en vol dont les
+     * attributs sont donnés, en appelant setLastMessageTimeStampNs, setAltitude et, si la position
+     * peut être déterminée, globalement ou, à défaut, localement, setPosition.
+     *
+     * @param icaoAddress l'adresse OACI de l'expéditeur du message, ignorée
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param altitude    l'altitude de l'aéronef, en mètres
+     * @param parity      la parité du message (0 s'il est pair, 1 s'il est impair)
+     * @param x           la longitude locale et normalisée
+     * @param y           la latitude locale et normalisée
+     */
+    @Override
+    public void onPosition(IcaoAddress icaoAddress, long timeStampNs, double altitude, int parity,
+                           double x, double y) {
+        stateSetter.setLastMessageTimeStampNs(timeStampNs);
+        stateSetter.setAltitude(altitude);
+        positionTimeStampsNs[parity] = timeStampNs;
+        positionXs[parity] = x;
+        positionYs[parity] = y;
+
+        GeoPos position = null;
+        if (positionTimeStampsNs[EVEN] >= 0 && positionTimeStampsNs[ODD] >= 0
+                && isValidPosition()) {
+            position = CprDecoder.decodePosition(positionXs[EVEN], positionYs[EVEN],
+                    positionXs[ODD], positionYs[ODD], parity);
+        }
+        if (position == null && lastPosition != null
+                && timeStampNs - lastPositionTimeStampNs <= MAX_TIME_DIFF_NS) {
+            position = CprDecoder.decodeLocalPosition(x, y, parity, lastPosition);
+            double maxDistance = MAX_SPEED * (timeStampNs - lastPositionTimeStampNs)
+                    / NANOS_PER_SECOND + POSITION_TOLERANCE;
+            if (position != null && distance(lastPosition, position) > maxDistance) {
+                position = null;
+                lastPosition = null;
+            }
+        } else if (position == null && !positioned && receiverPosition != null) {
+            position = CprDecoder.decodeLocalPosition(x, y, parity, receiverPosition);
+            if (position != null && distance(receiverPosition, position) > MAX_RECEIVER_RANGE) {
+                position = null;
+            }
+        }
+
+        if (position != null) {
+            stateSetter.setPosition(position);
+            lastPosition = position;
+            lastPositionTimeStampNs = timeStampNs;
+            positioned = true;
+        }
+    }
+
+    /**
+     * Met à jour l'état modifiable en fonction du message de vitesse en vol dont les attributs
+     * sont donnés, en appelant setLastMessageTimeStampNs, setVelocity et setTrackOrHeading.
+     *
+     * @param icaoAddress    l'adresse OACI de l'expéditeur du message, ignorée
+     * @param timeStampNs    l'horodatage du message, en nanosecondes
+     * @param speed          la vitesse de l'aéronef, en m/s
+     * @param trackOrHeading la direction de déplacement de l'aéronef, en radians
+     */
+    @Override
+    public void onVelocity(IcaoAddress icaoAddress, long timeStampNs, double speed,
+                           double trackOrHeading) {
+        stateSetter.setLastMessageTimeStampNs(timeStampNs);
+        stateSetter.setVelocity(speed);
+        stateSetter.setTrackOrHeading(trackOrHeading);
+    }
+
 
     /**
      * Retourne vrai si la différence de temps entre les deux derniers messages de positionnement
@@ -94,6 +218,20 @@ public final class AircraftStateAccumulator<T extends AircraftStateSetter> {
      * est inférieure à 10 secondes
      */
     private boolean isValidPosition() {
-        return Math.abs(positionEven.timeStampNs() - positionOdd.timeStampNs()) <= MAX_TIME_DIFF_NS;
+        return Math.abs(positionTimeStampsNs[EVEN] - positionTimeStampsNs[ODD])
+                <= MAX_TIME_DIFF_NS;
+    }
+
+    /**
+     * Retourne la distance, en mètres, séparant les deux positions données à la surface de la
+     * Terre, calculée par la formule de haversine.
+     */
+    private static double distance(GeoPos from, GeoPos to) {
+        double latitudeSine = Math.sin((to.latitude() - from.latitude()) / 2);
+        double longitudeSine = Math.sin((to.longitude() - from.longitude()) / 2);
+        double haversine = latitudeSine * latitudeSine
+                + Math.cos(from.latitude()) * Math.cos(to.latitude())
+                * longitudeSine * longitudeSine;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(haversine)));
     }
-}
\ No newline at end of file
+}
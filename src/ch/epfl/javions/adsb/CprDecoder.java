@@ -3,6 +3,11 @@ package ch.epfl.javions.adsb;
 import ch.epfl.javions.GeoPos;
 import ch.epfl.javions.Preconditions;
 import ch.epfl.javions.Units;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import static ch.epfl.javions.Units.convert;
 import static ch.epfl.javions.Units.convertFrom;
 
@@ -16,6 +21,49 @@ public class CprDecoder {
     private static final double EVEN_LATITUDE_NUMBER_ZONE = 60;
     private static final double EVEN_LATITUDE_LENGTH = 1d / EVEN_LATITUDE_NUMBER_ZONE;
     private static final double ODD_LATITUDE_NUMBER_ZONE = 59;
+    private static final double ODD_LATITUDE_LENGTH = 1d / ODD_LATITUDE_NUMBER_ZONE;
+    private static final double TURN_TO_T32 = convert(1, Units.Angle.TURN, Units.Angle.T32);
+    private static final double POLE = 0.25;
+
+    /**
+     * INVALID_LATITUDE_T32 représente la latitude, invalide, donnée par decodePositions aux
+     * positions qui ne peuvent pas être déterminées
+     */
+    public static final int INVALID_LATITUDE_T32 = Integer.MIN_VALUE;
+    private static final long INVALID_POSITION = Integer.toUnsignedLong(INVALID_LATITUDE_T32);
+
+    /**
+     * BATCH_THRESHOLD représente le nombre de paires en dessous duquel une tranche est décodée
+     * séquentiellement par decodePositions
+     */
+    private static final int BATCH_THRESHOLD = 1 << 13;
+
+    /**
+     * LATITUDE_THRESHOLDS contient, par ordre croissant, les 58 latitudes (en tours) à partir
+     * desquelles le nombre de zones de longitude diminue d'une unité, de 59 à l'équateur à 1 près
+     * des pôles. Elles sont calculées une fois pour toutes, par dichotomie sur les valeurs de type
+     * double, de sorte que la recherche dans la table donne exactement le même résultat que le
+     * calcul direct
+     */
+    private static final double[] LATITUDE_THRESHOLDS =
+            new double[(int) ODD_LATITUDE_NUMBER_ZONE - 1];
+
+    static {
+        for (int i = 0; i < LATITUDE_THRESHOLDS.length; i++) {
+            int zones = (int) ODD_LATITUDE_NUMBER_ZONE - i;
+            long below = Double.doubleToLongBits(0);
+            long above = Double.doubleToLongBits(POLE);
+            while (above - below > 1) {
+                long middle = (below + above) >>> 1;
+                if (computeLongitudeZoneNumber(Double.longBitsToDouble(middle)) >= zones) {
+                    below = middle;
+                } else {
+                    above = middle;
+                }
+            }
+            LATITUDE_THRESHOLDS[i] = Double.longBitsToDouble(above);
+        }
+    }
 
     /**
      * Constructeur de CprDecoder qui n'est pas instantiable
@@ -39,54 +87,248 @@ public class CprDecoder {
      */
     public static GeoPos decodePosition(double x0, double y0, double x1, double y1, int mostRecent) {
         Preconditions.checkArgument(mostRecent == 1 || mostRecent == 0);
+        long position = decode(x0, y0, x1, y1, mostRecent);
+        return position == INVALID_POSITION ? null : new GeoPos(longitudeT32(position),
+                latitudeT32(position));
+    }
+
+    /**
+     * Décode les positions des paires de messages CPR données par colonnes, et place leurs
+     * longitudes et latitudes, en T32, dans les tableaux donnés. La latitude d'une position qui ne
+     * peut pas être déterminée vaut INVALID_LATITUDE_T32, et sa longitude 0.
+     *
+     * @param x0            les longitudes locales des messages pairs
+     * @param y0            les latitudes locales des messages pairs
+     * @param x1            les longitudes locales des messages impairs
+     * @param y1            les latitudes locales des messages impairs
+     * @param mostRecent    les index de position les plus récents, 0 ou 1
+     * @param longitudesT32 le tableau dans lequel placer les longitudes décodées
+     * @param latitudesT32  le tableau dans lequel placer les latitudes décodées
+     * @return le nombre de positions décodées
+     * @throws IllegalArgumentException si les tableaux n'ont pas tous la même taille, ou si l'un
+     *                                  des index de position les plus récents n'est pas 0 ou 1
+     */
+    public static int decodePositions(double[] x0, double[] y0, double[] x1, double[] y1,
+                                      int[] mostRecent, int[] longitudesT32, int[] latitudesT32) {
+        checkArguments(x0, y0, x1, y1, mostRecent, longitudesT32, latitudesT32);
+        return decodePositions(x0, y0, x1, y1, mostRecent, longitudesT32, latitudesT32,
+                0, x0.length);
+    }
+
+    /**
+     * Décode, comme la méthode précédente, les positions des paires de messages CPR données, en
+     * découpant les tableaux en tranches décodées en parallèle sur le pool donné.
+     *
+     * @param x0            les longitudes locales des messages pairs
+     * @param y0            les latitudes locales des messages pairs
+     * @param x1            les longitudes locales des messages impairs
+     * @param y1            les latitudes locales des messages impairs
+     * @param mostRecent    les index de position les plus récents, 0 ou 1
+     * @param longitudesT32 le tableau dans lequel placer les longitudes décodées
+     * @param latitudesT32  le tableau dans lequel placer les latitudes décodées
+     * @param pool          le pool sur lequel décoder les tranches
+     * @return le nombre de positions décodées
+     * @throws IllegalArgumentException si les tableaux n'ont pas tous la même taille, ou si l'un
+     *                                  des index de position les plus récents n'est pas 0 ou 1
+     */
+    public static int decodePositions(double[] x0, double[] y0, double[] x1, double[] y1,
+                                      int[] mostRecent, int[] longitudesT32, int[] latitudesT32,
+                                      ForkJoinPool pool) {
+        checkArguments(x0, y0, x1, y1, mostRecent, longitudesT32, latitudesT32);
+        return pool.invoke(new DecodeTask(x0, y0, x1, y1, mostRecent, longitudesT32,
+                latitudesT32, 0, x0.length));
+    }
+
+    /**
+     * Représente le décodage parallèle d'une tranche des tableaux, découpée en deux tant qu'elle
+     * contient plus de BATCH_THRESHOLD paires
+     */
+    private static final class DecodeTask extends RecursiveTask<Integer> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final double[] x0, y0, x1, y1;
+        private final int[] mostRecent, longitudesT32, latitudesT32;
+        private final int from, to;
+
+        private DecodeTask(double[] x0, double[] y0, double[] x1, double[] y1, int[] mostRecent,
+                           int[] longitudesT32, int[] latitudesT32, int from, int to) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.mostRecent = mostRecent;
+            this.longitudesT32 = longitudesT32;
+            this.latitudesT32 = latitudesT32;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                return decodePositions(x0, y0, x1, y1, mostRecent, longitudesT32, latitudesT32,
+                        from, to);
+            }
+            int middle = (from + to) >>> 1;
+            DecodeTask left = new DecodeTask(x0, y0, x1, y1, mostRecent, longitudesT32,
+                    latitudesT32, from, middle);
+            left.fork();
+            int right = new DecodeTask(x0, y0, x1, y1, mostRecent, longitudesT32, latitudesT32,
+                    middle, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    /**
+     * Vérifie, avant que la moindre position ne soit décodée, que les tableaux ont tous la même
+     * taille et que les index de position les plus récents valent tous 0 ou 1.
+     */
+    private static void checkArguments(double[] x0, double[] y0, double[] x1, double[] y1,
+                                       int[] mostRecent, int[] longitudesT32,
+                                       int[] latitudesT32) {
+        int length = x0.length;
+        Preconditions.checkArgument(y0.length == length && x1.length == length
+                && y1.length == length && mostRecent.length == length
+                && longitudesT32.length == length && latitudesT32.length == length);
+        for (int recent : mostRecent) Preconditions.checkArgument(recent == 1 || recent == 0);
+    }
+
+    private static int decodePositions(double[] x0, double[] y0, double[] x1, double[] y1,
+                                       int[] mostRecent, int[] longitudesT32, int[] latitudesT32,
+                                       int from, int to) {
+        int decoded = 0;
+        for (int i = from; i < to; i++) {
+            long position = decode(x0[i], y0[i], x1[i], y1[i], mostRecent[i]);
+            longitudesT32[i] = longitudeT32(position);
+            latitudesT32[i] = latitudeT32(position);
+            if (position != INVALID_POSITION) decoded++;
+        }
+        return decoded;
+    }
 
+    /**
+     * Décode la position d'un aéronef à partir de deux messages CPR et la retourne empaquetée
+     * dans une valeur de type long, sa longitude en T32 dans les 32 bits de poids fort et sa
+     * latitude dans les 32 bits de poids faible, ou INVALID_POSITION si elle ne peut pas être
+     * déterminée.
+     */
+    private static long decode(double x0, double y0, double x1, double y1, int mostRecent) {
         double evenLatitudePosition = EVEN_LATITUDE_LENGTH * (latitudeZoneFinder(y0, y1,
                 EVEN_LATITUDE_NUMBER_ZONE) + y0);
 
-        //if (evenLatitudePosition >= 0.5) evenLatitudePosition -= 1;
-
-        double oddLatitudePosition = (1d / ODD_LATITUDE_NUMBER_ZONE) * (latitudeZoneFinder(y0, y1,
+        double oddLatitudePosition = ODD_LATITUDE_LENGTH * (latitudeZoneFinder(y0, y1,
                 ODD_LATITUDE_NUMBER_ZONE) + y1);
 
         if (oddLatitudePosition >= 0.5) oddLatitudePosition -= 1;
 
-        double evenNumberZone = calculatorArccos(evenLatitudePosition);
-        int evenLongitudeNumberZone = (Double.isNaN(evenNumberZone)) ? 1 :
-                (int) Math.floor((Units.Angle.TURN) / evenNumberZone);
+        int evenLongitudeNumberZone = longitudeZoneNumber(evenLatitudePosition);
+        if (evenLongitudeNumberZone != longitudeZoneNumber(oddLatitudePosition)) {
+            return INVALID_POSITION;
+        }
+        int oddLongitudeNumberZone = evenLongitudeNumberZone - 1;
+
+        double longitudePosition;
+        double latitudePosition;
+        if (mostRecent == 0) {
+            longitudePosition = getLongitudeEven(x0, x1,
+                    evenLongitudeNumberZone, oddLongitudeNumberZone);
+            latitudePosition = evenLatitudePosition;
+        } else {
+            longitudePosition = getLongitudeOdd(x0, x1,
+                    evenLongitudeNumberZone, oddLongitudeNumberZone);
+            latitudePosition = oddLatitudePosition;
+        }
 
-        double oddNumberZone = calculatorArccos(oddLatitudePosition);
-        int oddLongitudeNumberZoneVerification = Double.isNaN(oddNumberZone) ? 1 :
-                (int) Math.floor((Units.Angle.TURN) / oddNumberZone);
+        if (longitudePosition >= 0.5) longitudePosition -= 1;
+        if (latitudePosition >= 0.5) latitudePosition -= 1;
 
-        if (evenLongitudeNumberZone != oddLongitudeNumberZoneVerification) return null;
-        int oddLongitudeNumberZone = evenLongitudeNumberZone - 1;
+        int latitudePositionT32 = (int) Math.rint(latitudePosition * TURN_TO_T32);
+        if (!GeoPos.isValidLatitudeT32(latitudePositionT32)) return INVALID_POSITION;
+
+        return ((long) (int) Math.rint(longitudePosition * TURN_TO_T32) << Integer.SIZE)
+                | Integer.toUnsignedLong(latitudePositionT32);
+    }
+
+    private static int longitudeT32(long position) {
+        return (int) (position >> Integer.SIZE);
+    }
+
+    private static int latitudeT32(long position) {
+        return (int) position;
+    }
 
-        double evenLongitudePosition = getLongitudeEven(x0, x1,
-                evenLongitudeNumberZone, oddLongitudeNumberZone);
+    /**
+     * Décode localement la position d'un aéronef à partir d'un seul message CPR, relativement à une
+     * position de référence proche : la dernière position connue de l'aéronef ou celle du
+     * récepteur. Le décodage n'est correct que si l'aéronef se trouve à moins d'une demi-zone de
+     * latitude (environ 3°) et d'une demi-zone de longitude de la référence.
+     *
+     * @param x         la longitude locale du message
+     * @param y         la latitude locale du message
+     * @param parity    la parité du message (0 s'il est pair, 1 s'il est impair)
+     * @param reference la position de référence
+     * @return la position de l'aéronef ou null si la latitude de la position décodée n'est pas
+     * valide
+     * @throws IllegalArgumentException si parity n'est pas 0 ou 1
+     * @throws NullPointerException     si la position de référence est nulle
+     */
+    public static GeoPos decodeLocalPosition(double x, double y, int parity, GeoPos reference) {
+        Preconditions.checkArgument(parity == 1 || parity == 0);
 
-        double oddLongitudePosition = getLongitudeOdd(x0, x1,
-                evenLongitudeNumberZone, oddLongitudeNumberZone);
+        double latitudeLength = parity == 0 ? EVEN_LATITUDE_LENGTH : ODD_LATITUDE_LENGTH;
+        double latitudePosition = latitudeLength
+                * (localZone(reference.latitudeT32() / TURN_TO_T32, latitudeLength, y) + y);
 
-        if (evenLongitudePosition >= 0.5) evenLongitudePosition -= 1;
-        if (oddLongitudePosition >= 0.5) oddLongitudePosition -= 1;
-        if (evenLatitudePosition >= 0.5) evenLatitudePosition -= 1;
+        double longitudeLength = 1d / Math.max(longitudeZoneNumber(latitudePosition) - parity, 1);
+        double longitudePosition = longitudeLength
+                * (localZone(reference.longitudeT32() / TURN_TO_T32, longitudeLength, x) + x);
 
-        int oddLatitudePositionT32 = (int) Math.rint(convert(oddLatitudePosition,
-                Units.Angle.TURN, Units.Angle.T32));
+        if (longitudePosition >= 0.5) longitudePosition -= 1;
+        if (longitudePosition < -0.5) longitudePosition += 1;
 
-        int evenLatitudePositionT32 = (int) Math.rint(convert(evenLatitudePosition,
-                Units.Angle.TURN, Units.Angle.T32));
+        int latitudePositionT32 = (int) Math.rint(latitudePosition * TURN_TO_T32);
+        if (!GeoPos.isValidLatitudeT32(latitudePositionT32)) return null;
 
+        return new GeoPos((int) Math.rint(longitudePosition * TURN_TO_T32), latitudePositionT32);
+    }
+
+    /**
+     * Retourne l'index de la zone, de la taille donnée, contenant la position dont la fraction
+     * locale est donnée et qui est la plus proche de la position de référence donnée, en tours.
+     */
+    private static double localZone(double reference, double zoneLength, double fraction) {
+        double zones = reference / zoneLength;
+        double zone = Math.floor(zones);
+        return zone + Math.floor(0.5 + (zones - zone) - fraction);
+    }
 
+    /**
+     * Retourne le nombre de zones de longitude à la latitude donnée, en tours, par une recherche
+     * dichotomique dans la table des latitudes seuils. Le calcul direct ne dépendant que du carré
+     * du cosinus de la latitude, celle-ci est d'abord ramenée entre l'équateur et le pôle.
+     */
+    private static int longitudeZoneNumber(double latitude) {
+        double absoluteLatitude = Math.abs(latitude);
+        if (absoluteLatitude >= 0.5) absoluteLatitude = 1 - absoluteLatitude;
+        if (absoluteLatitude > POLE) absoluteLatitude = 0.5 - absoluteLatitude;
 
-        if(mostRecent == 0 && !GeoPos.isValidLatitudeT32(evenLatitudePositionT32)) return null;
-        if(mostRecent == 1 && !GeoPos.isValidLatitudeT32(oddLatitudePositionT32)) return null;
+        int low = 0;
+        int high = LATITUDE_THRESHOLDS.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (LATITUDE_THRESHOLDS[middle] <= absoluteLatitude) low = middle + 1;
+            else high = middle;
+        }
+        return (int) ODD_LATITUDE_NUMBER_ZONE - low;
+    }
 
-        return new GeoPos((int) Math.rint(convert(
-                mostRecent(evenLongitudePosition, oddLongitudePosition, mostRecent),
-                Units.Angle.TURN, Units.Angle.T32)),
-                (int) mostRecent(evenLatitudePositionT32,
-                        oddLatitudePositionT32, mostRecent));
+    /**
+     * Calcule directement le nombre de zones de longitude à la latitude donnée, en tours, qui
+     * vaut 1 lorsque l'arc cosinus n'est pas défini, c.-à-d. près des pôles.
+     */
+    private static int computeLongitudeZoneNumber(double latitude) {
+        double numberZone = calculatorArccos(latitude);
+        return Double.isNaN(numberZone) ? 1 : (int) Math.floor((Units.Angle.TURN) / numberZone);
     }
 
     private static double latitudeZoneFinder(double y0, double y1, double latitudeZoneNumber) {
@@ -123,8 +365,4 @@ public class CprDecoder {
         double angle = Math.cos(convertFrom(positionLatitudeEven, Units.Angle.TURN));
         return Math.acos(1 - (1 - Math.cos((Units.Angle.TURN * EVEN_LATITUDE_LENGTH))) / (angle * angle));
     }
-
-    private static double mostRecent(double even, double odd, int mostResent) {
-        return (mostResent == 0) ? even : odd;
-    }
-}
\ No newline at end of file
+}
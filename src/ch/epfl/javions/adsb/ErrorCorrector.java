@@ -0,0 +1,150 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Représente un correcteur d'erreurs des messages ADS-B de format DF17, capable de corriger les
+ * messages dont un (ou deux) bits ont été inversés lors de la réception.
+ * <p>
+ * Le CRC24 étant linéaire, le CRC d'un message erroné — son syndrome — ne dépend que des bits
+ * inversés. Une table, calculée une fois pour toutes, associe donc à chacun des syndromes des
+ * erreurs d'un ou deux bits la position de ces bits. Les 5 bits de l'attribut DF ne sont jamais
+ * corrigés, un message dont l'attribut DF est erroné n'étant de toute façon pas reconnu. Un
+ * syndrome partagé par plusieurs erreurs n'est pas corrigé.
+ * <p>
+ * La correction des erreurs de deux bits augmente sensiblement la probabilité d'accepter un
+ * message qui n'en est pas un, et ne devrait être utilisée que sur des messages dont le
+ * préambule a été détecté de manière fiable.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class ErrorCorrector {
+
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
+    private static final int MESSAGE_BITS = RawMessage.LENGTH * Byte.SIZE;
+    private static final int FIRST_CORRECTED_BIT = 5;
+    private static final int MAX_ERROR_BITS = 2;
+
+    /**
+     * TABLE_BITS représente le logarithme en base 2 de la capacité de la table des syndromes, qui
+     * est plus du double du nombre d'erreurs d'un ou deux bits
+     */
+    private static final int TABLE_BITS = 14;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final int AMBIGUOUS = -1;
+    private static final int[] SYNDROMES = new int[1 << TABLE_BITS];
+    private static final int[] ERRORS = new int[1 << TABLE_BITS];
+
+    static {
+        int[] bitSyndromes = new int[MESSAGE_BITS];
+        for (int i = FIRST_CORRECTED_BIT; i < MESSAGE_BITS; i++) {
+            bitSyndromes[i] = i < Long.SIZE
+                    ? CRC.crc(1L << (Long.SIZE - 1 - i), 0)
+                    : CRC.crc(0, 1L << (MESSAGE_BITS - 1 - i));
+        }
+        for (int i = FIRST_CORRECTED_BIT; i < MESSAGE_BITS; i++) {
+            put(bitSyndromes[i], error(i, -1));
+            for (int j = i + 1; j < MESSAGE_BITS; j++) {
+                put(bitSyndromes[i] ^ bitSyndromes[j], error(i, j));
+            }
+        }
+    }
+
+    private final int maxErrorBits;
+    private final AtomicLong singleBitCorrections = new AtomicLong();
+    private final AtomicLong doubleBitCorrections = new AtomicLong();
+
+    /**
+     * Construit un correcteur d'erreurs corrigeant les messages dont au plus le nombre de bits
+     * donné a été inversé.
+     *
+     * @param maxErrorBits le nombre maximum de bits corrigés dans un message, 1 ou 2
+     * @throws IllegalArgumentException si le nombre de bits n'est pas 1 ou 2
+     */
+    public ErrorCorrector(int maxErrorBits) {
+        Preconditions.checkArgument(1 <= maxErrorBits && maxErrorBits <= MAX_ERROR_BITS);
+        this.maxErrorBits = maxErrorBits;
+    }
+
+    /**
+     * Corrige, si possible, le message ADS-B donné, et retourne vrai ssi son CRC24 est valide
+     * après correction. Le tableau n'est modifié que si une correction a été faite.
+     *
+     * @param message les octets du message
+     * @return vrai ssi le CRC24 du message est valide après correction
+     * @throws IllegalArgumentException si la taille du message n'est pas RawMessage.LENGTH
+     */
+    public boolean correct(byte[] message) {
+        Preconditions.checkArgument(message.length == RawMessage.LENGTH);
+        int syndrome = CRC.crc(message);
+        if (syndrome == 0) return true;
+
+        int error = lookup(syndrome);
+        if (error == AMBIGUOUS) return false;
+        int second = error >> Byte.SIZE;
+        if (second != 0 && maxErrorBits < MAX_ERROR_BITS) return false;
+
+        flip(message, (error & 0xFF) - 1);
+        if (second != 0) {
+            flip(message, second - 1);
+            doubleBitCorrections.incrementAndGet();
+        } else {
+            singleBitCorrections.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Retourne le nombre de messages corrigés d'une erreur d'un bit.
+     *
+     * @return le nombre de messages corrigés d'une erreur d'un bit
+     */
+    public long singleBitCorrections() {
+        return singleBitCorrections.get();
+    }
+
+    /**
+     * Retourne le nombre de messages corrigés d'une erreur de deux bits.
+     *
+     * @return le nombre de messages corrigés d'une erreur de deux bits
+     */
+    public long doubleBitCorrections() {
+        return doubleBitCorrections.get();
+    }
+
+    /**
+     * Encode l'erreur consistant en l'inversion du bit i et, s'il est positif, du bit j, sous la
+     * forme (i + 1) | (j + 1) << 8.
+     */
+    private static int error(int i, int j) {
+        return (i + 1) | (j + 1) << Byte.SIZE;
+    }
+
+    private static int slot(int syndrome) {
+        return (syndrome * 0x9E3779B1) >>> (Integer.SIZE - TABLE_BITS);
+    }
+
+    private static void put(int syndrome, int error) {
+        int slot = slot(syndrome);
+        while (SYNDROMES[slot] != 0 && SYNDROMES[slot] != syndrome) slot = (slot + 1) & TABLE_MASK;
+        ERRORS[slot] = SYNDROMES[slot] == 0 ? error : AMBIGUOUS;
+        SYNDROMES[slot] = syndrome;
+    }
+
+    private static int lookup(int syndrome) {
+        int slot = slot(syndrome);
+        while (SYNDROMES[slot] != 0) {
+            if (SYNDROMES[slot] == syndrome) return ERRORS[slot];
+            slot = (slot + 1) & TABLE_MASK;
+        }
+        return AMBIGUOUS;
+    }
+
+    private static void flip(byte[] message, int bit) {
+        message[bit / Byte.SIZE] ^= (byte) (1 << (Byte.SIZE - 1 - bit % Byte.SIZE));
+    }
+}
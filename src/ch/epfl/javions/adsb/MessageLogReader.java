@@ -0,0 +1,244 @@
+package ch.epfl.javions.adsb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+import static ch.epfl.javions.adsb.MessageLogWriter.FOOTER_SIZE;
+import static ch.epfl.javions.adsb.MessageLogWriter.HEADER_SIZE;
+import static ch.epfl.javions.adsb.MessageLogWriter.MAGIC;
+import static ch.epfl.javions.adsb.MessageLogWriter.VERSION;
+import static ch.epfl.javions.adsb.RawMessageReader.RECORD_SIZE;
+
+/**
+ * Représente un lecteur de journal de messages ADS-B bruts écrit par MessageLogWriter, projetant
+ * ses messages en mémoire et permettant de se placer sur un horodatage quelconque, ou sur un
+ * instant quelconque grâce au début de la capture enregistré dans son en-tête.
+ * <p>
+ * La recherche d'un horodatage se fait par dichotomie dans l'index, puis dans le seul intervalle
+ * de messages qu'il désigne, de sorte qu'elle ne lit que quelques pages du fichier. Un journal
+ * qui n'a pas été fermé, et n'a donc ni index ni pied, reste lisible, la recherche se faisant
+ * alors par dichotomie dans la totalité des messages.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class MessageLogReader implements RawMessageSource {
+
+    /**
+     * REGION_RECORDS représente le nombre de messages de chacune des régions projetées, une seule
+     * projection étant limitée à 2^31 - 1 octets
+     */
+    private static final int REGION_RECORDS = 1 << 26;
+    private static final int HIGH_OFFSET = Long.BYTES;
+    private static final int LOW_INT_OFFSET = 2 * Long.BYTES;
+    private static final int LOW_SHORT_OFFSET = LOW_INT_OFFSET + Integer.BYTES;
+
+    private final MappedByteBuffer[] regions;
+    private final long size;
+    private final int indexInterval;
+    private final Instant start;
+    private final long[] index;
+    private long position;
+
+    /**
+     * Construit un lecteur du journal donné, placé sur son premier message. Le fichier est fermé
+     * dès la fin de la construction, les projections restant valides.
+     *
+     * @param path le chemin du journal
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si le fichier n'est pas un journal
+     *                     d'une version connue
+     */
+    public MessageLogReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) throw new IOException();
+            indexInterval = header.getInt();
+            if (indexInterval <= 0) throw new IOException();
+            start = Instant.EPOCH.plusNanos(header.getLong());
+
+            long indexPosition = indexPosition(channel, fileSize, indexInterval);
+            if (indexPosition < 0) {
+                size = (fileSize - HEADER_SIZE) / RECORD_SIZE;
+                index = new long[0];
+            } else {
+                size = (indexPosition - HEADER_SIZE) / RECORD_SIZE;
+                index = new long[entries(size, indexInterval)];
+                read(channel, indexPosition, index.length * Long.BYTES).asLongBuffer().get(index);
+            }
+
+            regions = new MappedByteBuffer[(int) ((size + REGION_RECORDS - 1) / REGION_RECORDS)];
+            for (int i = 0; i < regions.length; i++) {
+                long first = (long) i * REGION_RECORDS;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * RECORD_SIZE,
+                        Math.min(REGION_RECORDS, size - first) * RECORD_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Retourne le nombre de messages du journal.
+     *
+     * @return le nombre de messages du journal
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Retourne l'instant du début de la capture, auquel correspond l'horodatage 0.
+     *
+     * @return l'instant du début de la capture
+     */
+    public Instant start() {
+        return start;
+    }
+
+    /**
+     * Retourne l'horodatage correspondant à l'instant donné, c.-à-d. la durée écoulée entre le
+     * début de la capture et cet instant, en nanosecondes, ramenée aux bornes du type long si
+     * elle n'y est pas représentable.
+     *
+     * @param instant l'instant
+     * @return l'horodatage correspondant à l'instant donné, en nanosecondes
+     */
+    public long timeStampNs(Instant instant) {
+        Duration duration = Duration.between(start, instant);
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return duration.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Retourne l'index du premier message du journal reçu à l'instant donné ou après lui, ou le
+     * nombre de messages du journal s'il n'y en a aucun.
+     *
+     * @param instant l'instant recherché
+     * @return l'index du premier message reçu à l'instant donné ou après lui
+     */
+    public long indexOf(Instant instant) {
+        return indexOf(timeStampNs(instant));
+    }
+
+    /**
+     * Retourne l'index du premier message du journal dont l'horodatage est supérieur ou égal à
+     * celui donné, ou le nombre de messages du journal s'il n'y en a aucun.
+     *
+     * @param timeStampNs l'horodatage recherché, en nanosecondes
+     * @return l'index du premier message d'horodatage supérieur ou égal à celui donné
+     */
+    public long indexOf(long timeStampNs) {
+        long from = 0;
+        long to = size;
+        if (index.length > 0) {
+            int entry = 0;
+            int last = index.length;
+            while (entry < last) {
+                int middle = (entry + last) >>> 1;
+                if (index[middle] < timeStampNs) entry = middle + 1;
+                else last = middle;
+            }
+            from = Math.max(entry - 1, 0) * (long) indexInterval;
+            to = Math.min((long) entry * indexInterval, size);
+        }
+        while (from < to) {
+            long middle = (from + to) >>> 1;
+            if (timeStampNs(middle) < timeStampNs) from = middle + 1;
+            else to = middle;
+        }
+        return from;
+    }
+
+    /**
+     * Retourne le message d'index donné.
+     *
+     * @param messageIndex l'index du message
+     * @return le message d'index donné
+     * @throws IndexOutOfBoundsException si l'index n'est pas compris entre 0 et size (exclu)
+     */
+    public RawMessage message(long messageIndex) {
+        Objects.checkIndex(messageIndex, size);
+        MappedByteBuffer region = regions[(int) (messageIndex / REGION_RECORDS)];
+        int offset = (int) (messageIndex % REGION_RECORDS) * RECORD_SIZE;
+        long low = Integer.toUnsignedLong(region.getInt(offset + LOW_INT_OFFSET)) << Short.SIZE
+                | Short.toUnsignedLong(region.getShort(offset + LOW_SHORT_OFFSET));
+        return new RawMessage(region.getLong(offset), region.getLong(offset + HIGH_OFFSET), low);
+    }
+
+    /**
+     * Place le lecteur sur le premier message dont l'horodatage est supérieur ou égal à celui
+     * donné.
+     *
+     * @param timeStampNs l'horodatage sur lequel se placer, en nanosecondes
+     */
+    @Override
+    public void seek(long timeStampNs) {
+        position = indexOf(timeStampNs);
+    }
+
+    /**
+     * Place le lecteur sur le premier message reçu à l'instant donné ou après lui.
+     *
+     * @param instant l'instant sur lequel se placer
+     */
+    public void seek(Instant instant) {
+        position = indexOf(instant);
+    }
+
+    /**
+     * Retourne le message sur lequel est placé le lecteur, et place ce dernier sur le message
+     * suivant, ou retourne null si la fin du journal est atteinte.
+     *
+     * @return le prochain message du journal, ou null s'il n'y en a plus
+     */
+    @Override
+    public RawMessage nextMessage() {
+        return position < size ? message(position++) : null;
+    }
+
+    private long timeStampNs(long messageIndex) {
+        MappedByteBuffer region = regions[(int) (messageIndex / REGION_RECORDS)];
+        return region.getLong((int) (messageIndex % REGION_RECORDS) * RECORD_SIZE);
+    }
+
+    /**
+     * Retourne la position de l'index donnée par le pied du journal, ou -1 si le journal n'a pas
+     * de pied valide, ou si la taille de son index ne correspond pas à celle du fichier.
+     */
+    private static long indexPosition(FileChannel channel, long fileSize, int indexInterval)
+            throws IOException {
+        if (fileSize < HEADER_SIZE + FOOTER_SIZE) return -1;
+        ByteBuffer footer = read(channel, fileSize - FOOTER_SIZE, FOOTER_SIZE);
+        long indexPosition = footer.getLong();
+        if (footer.getInt() != MAGIC
+                || indexPosition < HEADER_SIZE
+                || indexPosition > fileSize - FOOTER_SIZE
+                || (indexPosition - HEADER_SIZE) % RECORD_SIZE != 0) return -1;
+        long size = (indexPosition - HEADER_SIZE) / RECORD_SIZE;
+        long indexEnd = indexPosition + (long) entries(size, indexInterval) * Long.BYTES;
+        return indexEnd == fileSize - FOOTER_SIZE ? indexPosition : -1;
+    }
+
+    private static int entries(long size, int indexInterval) {
+        return (int) ((size + indexInterval - 1) / indexInterval);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException();
+        }
+        return buffer.flip();
+    }
+}
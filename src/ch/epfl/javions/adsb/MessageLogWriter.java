@@ -0,0 +1,189 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Représente un écrivain de journal de messages ADS-B bruts, dont le format permet la lecture à
+ * partir d'un horodatage, ou d'un instant, quelconque par MessageLogReader.
+ * <p>
+ * Les horodatages des messages étant relatifs au début de la capture, celui-ci est enregistré
+ * dans l'en-tête, ce qui permet de faire correspondre un instant à chaque message.
+ * <p>
+ * Un journal est constitué :
+ * <ul>
+ *     <li>d'un en-tête de HEADER_SIZE octets : le nombre magique MAGIC, la version du format,
+ *     l'intervalle de l'index, c.-à-d. le nombre de messages séparant deux de ses entrées, et
+ *     l'instant du début de la capture, en nanosecondes depuis l'époque Unix,</li>
+ *     <li>des messages, dans l'ordre de leurs horodatages, chacun étant stocké sous la forme de son
+ *     horodatage suivi de ses 14 octets, comme dans les fichiers lus par RawMessageReader,</li>
+ *     <li>de l'index, c.-à-d. des horodatages des messages dont l'index est un multiple de
+ *     l'intervalle,</li>
+ *     <li>d'un pied de FOOTER_SIZE octets : la position de l'index dans le fichier, suivie du
+ *     nombre magique.</li>
+ * </ul>
+ * L'index et le pied ne sont écrits qu'à la fermeture du journal. Toutes les valeurs sont stockées
+ * avec leur octet de poids fort en premier. Le journal peut être fermé depuis un autre fil que
+ * celui qui l'écrit, par exemple à l'arrêt de l'application.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class MessageLogWriter implements Closeable {
+
+    /**
+     * MAGIC représente le nombre magique identifiant les journaux, c.-à-d. les caractères "JVLG"
+     */
+    public static final int MAGIC = 0x4A564C47;
+    /**
+     * VERSION représente la version du format des journaux écrits
+     */
+    public static final int VERSION = 2;
+    /**
+     * HEADER_SIZE et FOOTER_SIZE représentent les tailles en octets de l'en-tête et du pied
+     */
+    public static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+    public static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    /**
+     * DEFAULT_INDEX_INTERVAL représente l'intervalle par défaut de l'index, qui n'a ainsi qu'une
+     * entrée par 22 Kio de messages
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 1 << 10;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 8;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final int indexInterval;
+    private long[] index = new long[INITIAL_INDEX_CAPACITY];
+    private long count;
+    private long lastTimeStampNs;
+    private boolean closed;
+
+    /**
+     * Construit un écrivain de journal créant (ou remplaçant) le fichier donné, pour une capture
+     * ayant commencé à l'instant donné, avec l'intervalle d'index par défaut.
+     *
+     * @param path  le chemin du journal
+     * @param start l'instant du début de la capture, auquel correspond l'horodatage 0
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'instant n'est pas représentable en nanosecondes
+     *                                  depuis l'époque Unix
+     */
+    public MessageLogWriter(Path path, Instant start) throws IOException {
+        this(path, start, DEFAULT_INDEX_INTERVAL);
+    }
+
+    /**
+     * Construit un écrivain de journal créant (ou remplaçant) le fichier donné, pour une capture
+     * ayant commencé à l'instant donné, dont l'index a une entrée tous les indexInterval messages.
+     *
+     * @param path          le chemin du journal
+     * @param start         l'instant du début de la capture, auquel correspond l'horodatage 0
+     * @param indexInterval le nombre de messages séparant deux entrées de l'index
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'intervalle n'est pas strictement positif, ou si
+     *                                  l'instant n'est pas représentable en nanosecondes depuis
+     *                                  l'époque Unix
+     */
+    public MessageLogWriter(Path path, Instant start, int indexInterval) throws IOException {
+        Preconditions.checkArgument(indexInterval > 0);
+        long startEpochNs = epochNanos(start);
+        this.indexInterval = indexInterval;
+        this.channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(indexInterval).putLong(startEpochNs);
+    }
+
+    /**
+     * Ajoute au journal le message donné, dont l'horodatage ne doit pas être inférieur à celui du
+     * message précédent. L'écriture est tamponnée, et ne fait aucune allocation hors de la
+     * croissance de l'index.
+     *
+     * @param message le message à ajouter
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'horodatage du message est inférieur à celui du
+     *                                  message précédent
+     * @throws IllegalStateException    si le journal est fermé
+     */
+    public synchronized void write(RawMessage message) throws IOException {
+        if (closed) throw new IllegalStateException();
+        Preconditions.checkArgument(message.timeStampNs() >= lastTimeStampNs);
+        if (count % indexInterval == 0) {
+            int entry = (int) (count / indexInterval);
+            if (entry == index.length) index = Arrays.copyOf(index, 2 * index.length);
+            index[entry] = message.timeStampNs();
+        }
+        if (buffer.remaining() < RawMessageReader.RECORD_SIZE) flush();
+        buffer.putLong(message.timeStampNs())
+                .putLong(message.high())
+                .putInt((int) (message.low() >>> Short.SIZE))
+                .putShort((short) message.low());
+        lastTimeStampNs = message.timeStampNs();
+        count++;
+    }
+
+    /**
+     * Retourne le nombre de messages écrits dans le journal.
+     *
+     * @return le nombre de messages du journal
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Écrit l'index et le pied du journal, puis ferme son fichier. Un journal fermé le reste.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            long indexPosition = HEADER_SIZE + count * RawMessageReader.RECORD_SIZE;
+            int entries = (int) ((count + indexInterval - 1) / indexInterval);
+            for (int i = 0; i < entries; i++) {
+                if (buffer.remaining() < Long.BYTES) flush();
+                buffer.putLong(index[i]);
+            }
+            if (buffer.remaining() < FOOTER_SIZE) flush();
+            buffer.putLong(indexPosition).putInt(MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Retourne l'instant donné en nanosecondes depuis l'époque Unix.
+     *
+     * @throws IllegalArgumentException si l'instant n'est pas représentable ainsi
+     */
+    static long epochNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND),
+                    instant.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -21,12 +21,26 @@ public final class MessageParser {
      * dernier ne correspond à aucun de ces trois types de messages, ou s'il est invalide.
      */
     public static Message parse(RawMessage rawMessage) {
+        MessageRecorder recorder = MessageRecorder.current();
+        return parse(rawMessage, recorder) ? recorder.take() : null;
+    }
+
+    /**
+     * Analyse un message ADS-B brut et transmet ses attributs au destinataire donné, en appelant
+     * la méthode correspondant à son type, sans créer d'enregistrement.
+     *
+     * @param rawMessage le message ADS-B brut
+     * @param sink       le destinataire des attributs du message
+     * @return vrai ssi le message est de l'un des trois types décrits précédemment et est valide,
+     * c.-à-d. ssi ses attributs ont été transmis au destinataire
+     */
+    public static boolean parse(RawMessage rawMessage, MessageSink sink) {
         return switch (rawMessage.typeCode()) {
-            case 1, 2, 3, 4 -> AircraftIdentificationMessage.of(rawMessage);
+            case 1, 2, 3, 4 -> AircraftIdentificationMessage.decode(rawMessage, sink);
             case 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 20, 21, 22
-                    -> AirbornePositionMessage.of(rawMessage);
-            case 19 -> AirborneVelocityMessage.of(rawMessage);
-            default -> null;
+                    -> AirbornePositionMessage.decode(rawMessage, sink);
+            case 19 -> AirborneVelocityMessage.decode(rawMessage, sink);
+            default -> false;
         };
     }
-}
\ No newline at end of file
+}
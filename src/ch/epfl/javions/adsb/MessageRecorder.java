@@ -0,0 +1,63 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+/**
+ * Destinataire de messages construisant l'enregistrement correspondant au dernier message reçu,
+ * utilisé pour fournir l'interface des enregistrements au-dessus de celle des destinataires.
+ * Chaque fil d'exécution réutilise son propre destinataire, de sorte que cette interface
+ * n'alloue rien d'autre que l'enregistrement retourné.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+final class MessageRecorder implements MessageSink {
+    private static final ThreadLocal<MessageRecorder> RECORDERS =
+            ThreadLocal.withInitial(MessageRecorder::new);
+
+    private Message message;
+
+    /**
+     * Constructeur de MessageRecorder, réservé à la table des destinataires par fil d'exécution
+     */
+    private MessageRecorder() {}
+
+    /**
+     * Retourne le destinataire propre au fil d'exécution courant
+     *
+     * @return le destinataire du fil d'exécution courant
+     */
+    static MessageRecorder current() {
+        return RECORDERS.get();
+    }
+
+    /**
+     * Retourne l'enregistrement du dernier message reçu, ou null si aucun message n'a été reçu
+     * depuis le dernier appel, et l'oublie afin que le destinataire ne le retienne pas
+     *
+     * @return l'enregistrement du dernier message reçu
+     */
+    Message take() {
+        Message taken = message;
+        message = null;
+        return taken;
+    }
+
+    @Override
+    public void onIdentification(IcaoAddress icaoAddress, long timeStampNs, int category,
+                                 CallSign callSign) {
+        message = new AircraftIdentificationMessage(timeStampNs, icaoAddress, category, callSign);
+    }
+
+    @Override
+    public void onPosition(IcaoAddress icaoAddress, long timeStampNs, double altitude, int parity,
+                           double x, double y) {
+        message = new AirbornePositionMessage(timeStampNs, icaoAddress, altitude, parity, x, y);
+    }
+
+    @Override
+    public void onVelocity(IcaoAddress icaoAddress, long timeStampNs, double speed,
+                           double trackOrHeading) {
+        message = new AirborneVelocityMessage(timeStampNs, icaoAddress, speed, trackOrHeading);
+    }
+}
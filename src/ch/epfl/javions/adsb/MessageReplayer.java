@@ -0,0 +1,266 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Représente un rejoueur de messages ADS-B bruts enregistrés, qui transmet chaque message à un
+ * consommateur au moment correspondant à son horodatage, à une vitesse donnée.
+ * <p>
+ * L'échéance de chaque message est calculée en nanosecondes à partir d'une origine : l'instant
+ * de démarrage, ou celui de la dernière modification de la vitesse, de la pause ou de la
+ * position. À chaque réveil du rejoueur, tous les messages dont l'échéance est atteinte sont
+ * transmis d'un coup, de sorte qu'un consommateur en retard rattrape son retard par lots plutôt
+ * que de le cumuler. L'attente d'une échéance se termine par une courte attente active, pour une
+ * précision bien meilleure que celle de Thread.sleep.
+ * <p>
+ * La méthode run s'exécute sur le fil appelant, les autres méthodes pouvant être appelées depuis
+ * n'importe quel fil.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class MessageReplayer {
+
+    /**
+     * AS_FAST_AS_POSSIBLE représente la vitesse à laquelle les messages sont transmis sans attente
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    /**
+     * SPIN_NS représente la durée, en nanosecondes, de l'attente active précédant chaque échéance,
+     * et MAX_BATCH_SIZE le nombre maximum de messages transmis entre deux prises en compte des
+     * commandes
+     */
+    private static final long SPIN_NS = 100_000L;
+    private static final int MAX_BATCH_SIZE = 1 << 10;
+    private static final long NO_SEEK = Long.MIN_VALUE;
+
+    private final RawMessageSource source;
+    private final Consumer<RawMessage> consumer;
+    private final LongSupplier nanoClock;
+    private final AtomicLong seekTimeStampNs = new AtomicLong(NO_SEEK);
+    private final AtomicLong releasedCount = new AtomicLong();
+    private volatile double speed;
+    private volatile boolean paused;
+    private volatile boolean stopped;
+    private volatile boolean originChanged;
+    private volatile Thread thread;
+
+    private double originSpeed;
+    private long originNs;
+    private long originTimeStampNs;
+    private volatile Progress progress = new Progress(0, 0, 0);
+
+    /**
+     * Représente l'avancement du rejeu depuis son origine, publié d'un bloc afin que la vitesse
+     * effective soit toujours calculée à partir de valeurs cohérentes
+     *
+     * @param originNs          l'instant de l'origine, en nanosecondes
+     * @param originTimeStampNs l'horodatage du message à l'origine
+     * @param lastTimeStampNs   l'horodatage du dernier message transmis
+     */
+    private record Progress(long originNs, long originTimeStampNs, long lastTimeStampNs) {}
+
+    /**
+     * Construit un rejoueur transmettant au consommateur donné les messages de la source donnée,
+     * à vitesse réelle.
+     *
+     * @param source   la source des messages
+     * @param consumer le consommateur des messages, appelé sur le fil exécutant run
+     * @throws NullPointerException si la source ou le consommateur est nul
+     */
+    public MessageReplayer(RawMessageSource source, Consumer<RawMessage> consumer) {
+        this(source, consumer, System::nanoTime);
+    }
+
+    /**
+     * Construit un rejoueur transmettant au consommateur donné les messages de la source donnée,
+     * à vitesse réelle, mesurée par l'horloge donnée.
+     *
+     * @param source    la source des messages
+     * @param consumer  le consommateur des messages, appelé sur le fil exécutant run
+     * @param nanoClock l'horloge, en nanosecondes, comme System.nanoTime
+     * @throws NullPointerException si la source, le consommateur ou l'horloge est nul
+     */
+    MessageReplayer(RawMessageSource source, Consumer<RawMessage> consumer,
+                    LongSupplier nanoClock) {
+        this.source = Objects.requireNonNull(source);
+        this.consumer = Objects.requireNonNull(consumer);
+        this.nanoClock = Objects.requireNonNull(nanoClock);
+        this.speed = 1;
+    }
+
+    /**
+     * Rejoue les messages de la source jusqu'à ce qu'elle soit épuisée ou que le rejoueur soit
+     * arrêté. Le premier message d'horodatage 0 est transmis immédiatement.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie de la source
+     */
+    public void run() throws IOException {
+        thread = Thread.currentThread();
+        setOrigin(nanoClock.getAsLong(), 0);
+        RawMessage message = null;
+        while (!stopped) {
+            long seek = seekTimeStampNs.getAndSet(NO_SEEK);
+            if (seek != NO_SEEK) {
+                source.seek(seek);
+                message = null;
+                originChanged = true;
+            }
+            if (paused) {
+                LockSupport.park(this);
+                originChanged = true;
+                continue;
+            }
+
+            if (message == null && (message = source.nextMessage()) == null) break;
+            if (originChanged || speed != originSpeed) {
+                originChanged = false;
+                setOrigin(nanoClock.getAsLong(), message.timeStampNs());
+            }
+
+            long deadline = deadline(message);
+            long now = nanoClock.getAsLong();
+            if (now < deadline) {
+                await(deadline);
+                continue;
+            }
+
+            int count = 0;
+            long lastTimeStampNs;
+            do {
+                consumer.accept(message);
+                lastTimeStampNs = message.timeStampNs();
+                count++;
+                message = source.nextMessage();
+            } while (message != null && count < MAX_BATCH_SIZE && deadline(message) <= now);
+            progress = new Progress(originNs, originTimeStampNs, lastTimeStampNs);
+            releasedCount.addAndGet(count);
+            if (message == null) break;
+        }
+        thread = null;
+    }
+
+    /**
+     * Modifie la vitesse du rejeu, c.-à-d. le rapport entre la durée séparant les horodatages de
+     * deux messages et celle séparant leurs transmissions.
+     *
+     * @param speed la vitesse du rejeu, AS_FAST_AS_POSSIBLE pour transmettre les messages sans
+     *              attente
+     * @throws IllegalArgumentException si la vitesse n'est pas strictement positive
+     */
+    public void setSpeed(double speed) {
+        Preconditions.checkArgument(speed > 0);
+        this.speed = speed;
+        wakeUp();
+    }
+
+    /**
+     * Retourne la vitesse du rejeu demandée.
+     *
+     * @return la vitesse du rejeu demandée
+     */
+    public double speed() {
+        return speed;
+    }
+
+    /**
+     * Suspend le rejeu, ou le reprend, là où il a été suspendu.
+     *
+     * @param paused vrai pour suspendre le rejeu, faux pour le reprendre
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        wakeUp();
+    }
+
+    /**
+     * Retourne vrai ssi le rejeu est suspendu.
+     *
+     * @return vrai ssi le rejeu est suspendu
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Reprend le rejeu au premier message dont l'horodatage est supérieur ou égal à celui donné.
+     * La source doit permettre de se placer, faute de quoi run lève une exception.
+     *
+     * @param timeStampNs l'horodatage auquel reprendre le rejeu, en nanosecondes
+     */
+    public void seek(long timeStampNs) {
+        seekTimeStampNs.set(timeStampNs);
+        wakeUp();
+    }
+
+    /**
+     * Arrête le rejeu, la méthode run se terminant dès que possible.
+     */
+    public void stop() {
+        stopped = true;
+        wakeUp();
+    }
+
+    /**
+     * Retourne le nombre de messages transmis au consommateur.
+     *
+     * @return le nombre de messages transmis
+     */
+    public long releasedCount() {
+        return releasedCount.get();
+    }
+
+    /**
+     * Retourne la vitesse effective du rejeu depuis la dernière modification de la vitesse, de la
+     * pause ou de la position, c.-à-d. le rapport entre la durée écoulée selon les horodatages des
+     * messages transmis et la durée réelle écoulée, ou 0 si aucun temps ne s'est écoulé.
+     *
+     * @return la vitesse effective du rejeu
+     */
+    public double achievedSpeed() {
+        Progress progress = this.progress;
+        long elapsedNs = nanoClock.getAsLong() - progress.originNs();
+        long replayedNs = progress.lastTimeStampNs() - progress.originTimeStampNs();
+        return elapsedNs > 0 && replayedNs > 0 ? (double) replayedNs / elapsedNs : 0;
+    }
+
+    private void setOrigin(long originNs, long originTimeStampNs) {
+        this.originSpeed = speed;
+        this.originNs = originNs;
+        this.originTimeStampNs = originTimeStampNs;
+        this.progress = new Progress(originNs, originTimeStampNs, originTimeStampNs);
+    }
+
+    private long deadline(RawMessage message) {
+        if (originSpeed == AS_FAST_AS_POSSIBLE) return originNs;
+        return originNs + (long) ((message.timeStampNs() - originTimeStampNs) / originSpeed);
+    }
+
+    /**
+     * Attend l'échéance donnée, ou l'arrivée d'une commande, en terminant par une attente active.
+     */
+    private void await(long deadline) {
+        long remaining = deadline - nanoClock.getAsLong();
+        if (remaining > SPIN_NS) {
+            LockSupport.parkNanos(this, remaining - SPIN_NS);
+        } else {
+            while (nanoClock.getAsLong() < deadline && speed == originSpeed && !paused && !stopped
+                    && seekTimeStampNs.get() == NO_SEEK) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void wakeUp() {
+        Thread thread = this.thread;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+}
@@ -0,0 +1,51 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+/**
+ * Interface qui a pour but d'être implémentée par les destinataires des messages ADS-B analysés
+ * par MessageParser.parse(RawMessage, MessageSink), qui reçoivent directement les attributs de
+ * chaque message au lieu d'un enregistrement. Les adresses OACI étant prises dans un cache,
+ * l'analyse des messages de positionnement et de vitesse en vol n'alloue ainsi en général aucun
+ * objet.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public interface MessageSink {
+
+    /**
+     * Reçoit les attributs d'un message d'identification et de catégorie
+     *
+     * @param icaoAddress l'adresse OACI de l'expéditeur du message
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param category    la catégorie de l'aéronef
+     * @param callSign    l'indicatif de l'aéronef
+     */
+    void onIdentification(IcaoAddress icaoAddress, long timeStampNs, int category,
+                          CallSign callSign);
+
+    /**
+     * Reçoit les attributs d'un message de positionnement en vol
+     *
+     * @param icaoAddress l'adresse OACI de l'expéditeur du message
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param altitude    l'altitude de l'aéronef, en mètres
+     * @param parity      la parité du message (0 s'il est pair, 1 s'il est impair)
+     * @param x           la longitude locale et normalisée, comprise entre 0 (inclus) et 1 (exclu)
+     * @param y           la latitude locale et normalisée, comprise entre 0 (inclus) et 1 (exclu)
+     */
+    void onPosition(IcaoAddress icaoAddress, long timeStampNs, double altitude, int parity,
+                    double x, double y);
+
+    /**
+     * Reçoit les attributs d'un message de vitesse en vol
+     *
+     * @param icaoAddress    l'adresse OACI de l'expéditeur du message
+     * @param timeStampNs    l'horodatage du message, en nanosecondes
+     * @param speed          la vitesse de l'aéronef, en m/s
+     * @param trackOrHeading la direction de déplacement de l'aéronef, en radians
+     */
+    void onVelocity(IcaoAddress icaoAddress, long timeStampNs, double speed,
+                    double trackOrHeading);
+}
@@ -5,17 +5,18 @@ import ch.epfl.javions.ByteString;
 import ch.epfl.javions.Crc24;
 import ch.epfl.javions.Preconditions;
 import ch.epfl.javions.aircraft.IcaoAddress;
-import java.util.HexFormat;
+import java.util.Objects;
 
 /**
  * Représente un message ADS-B "brut", c'est-à-dire dont l'attribut ME n'a pas encore été analysé.
+ * <p>
+ * Les 14 octets du message sont stockés dans deux valeurs de type long, de sorte que ses attributs
+ * sont extraits en temps constant. La chaîne d'octets n'est créée qu'à la première demande.
  *
- * @param timeStampNs l'horodatage du message, exprimé en nanosecondes depuis une origine donnée
- * @param bytes       les octets du message
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
  */
-public record RawMessage(long timeStampNs, ByteString bytes) {
+public final class RawMessage {
 
     /**
      * LENGTH la taille en octets des messages ADS-B
@@ -23,26 +24,67 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
     public static final int LENGTH = 14;
     private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
     private static final int USABLE_SQUITTER = 17;
-    private static final HexFormat HEXFORMAT = HexFormat.of().withUpperCase();
     private static final int START_TYPE_CODE = 51;
     private static final int SIZE_TYPE_CODE = 5;
-    private static final int START_DOWN_LINK_FORMAT = 3;
+    private static final int START_DOWN_LINK_FORMAT = 59;
     private static final int SIZE_DOWN_LINK_FORMAT = 5;
-    private static final int FROM_INDEX_ATTRIBUT_ME = 4;
-    private static final int TO_INDEX_ATTRIBUT_ME = 11;
-    private static final int FROM_INDEX_ICAO_ADDRESS = 1;
-    private static final int TO_INDEX_ICAO_ADDRESS = 4;
+    private static final int START_ICAO_ADDRESS = 32;
+    private static final int SIZE_ICAO_ADDRESS = 24;
     private static final int START_BYTE_0 = 3;
     private static final int SIZE_BYTE_0 = 5;
 
+    /**
+     * LOW_BYTES représente le nombre d'octets du message stockés dans low, et ME_LOW_BITS le nombre
+     * de bits de l'attribut ME qui s'y trouvent
+     */
+    private static final int LOW_BYTES = LENGTH - Long.BYTES;
+    private static final int ME_LOW_BITS = 24;
+    private static final long ME_HIGH_MASK = (1L << Integer.SIZE) - 1;
+
+    private final long timeStampNs;
+    private final long high;
+    private final long low;
+    private ByteString bytes;
+
     /**
      * Construit un message ADS-B brut avec l'horodatage et les octets donnés
      *
+     * @param timeStampNs l'horodatage du message, exprimé en nanosecondes depuis une origine donnée
+     * @param bytes       les octets du message
      * @throws IllegalArgumentException si l'horodatage est strictement négatif ou si la taille des
      * octets n'est pas égale à LENGTH
      */
-    public RawMessage {
+    public RawMessage(long timeStampNs, ByteString bytes) {
         Preconditions.checkArgument(timeStampNs >= 0 && bytes.size() == LENGTH);
+        long high = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            high = (high << Byte.SIZE) | bytes.byteAt(i);
+        }
+        long low = 0;
+        for (int i = Long.BYTES; i < LENGTH; i++) {
+            low = (low << Byte.SIZE) | bytes.byteAt(i);
+        }
+        this.timeStampNs = timeStampNs;
+        this.high = high;
+        this.low = low;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Construit un message ADS-B brut avec l'horodatage donné et dont les octets sont ceux des
+     * deux valeurs données, sans créer la chaîne d'octets correspondante
+     *
+     * @param timeStampNs l'horodatage du message, exprimé en nanosecondes depuis une origine donnée
+     * @param high        les 8 premiers octets du message, le premier étant l'octet de poids fort
+     * @param low         les 6 derniers octets du message, dans les 48 bits de poids faible
+     * @throws IllegalArgumentException si l'horodatage est strictement négatif ou si les 16 bits
+     * de poids fort de low ne sont pas nuls
+     */
+    public RawMessage(long timeStampNs, long high, long low) {
+        Preconditions.checkArgument(timeStampNs >= 0 && low >>> (LOW_BYTES * Byte.SIZE) == 0);
+        this.timeStampNs = timeStampNs;
+        this.high = high;
+        this.low = low;
     }
 
     /**
@@ -60,6 +102,24 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
         else return new RawMessage(timeStampNs, new ByteString(bytes));
     }
 
+    /**
+     * Retourne le message ADS-B brut avec l'horodatage et les octets donnés, corrigés si
+     * nécessaire par le correcteur d'erreurs donné, ou null si le CRC24 des octets ne vaut pas 0
+     * et qu'ils ne peuvent pas être corrigés. Le tableau donné n'est jamais modifié.
+     *
+     * @param timeStampNs l'horodatage du message, exprimé en nanosecondes depuis une origine donnée
+     * @param bytes       les octets du message
+     * @param corrector   le correcteur d'erreurs
+     * @return le message ADS-B brut avec l'horodatage et les octets (corrigés) donnés, ou null
+     */
+    public static RawMessage of(long timeStampNs, byte[] bytes, ErrorCorrector corrector) {
+        if (CRC.crc(bytes) == 0) return new RawMessage(timeStampNs, new ByteString(bytes));
+
+        byte[] corrected = bytes.clone();
+        if (corrected.length != LENGTH || !corrector.correct(corrected)) return null;
+        else return new RawMessage(timeStampNs, new ByteString(corrected));
+    }
+
     /**
      * Donne la taille d'un message dont le premier octet est celui donné, et qui vaut LENGTH si
      * l'attribut DF contenu dans ce premier octet vaut 17, et 0 sinon — indiquant que le message
@@ -83,24 +143,71 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
         return Bits.extractUInt(payload, START_TYPE_CODE, SIZE_TYPE_CODE);
     }
 
+    /**
+     * Retourne l'horodatage du message, exprimé en nanosecondes depuis une origine donnée
+     *
+     * @return l'horodatage du message
+     */
+    public long timeStampNs() {
+        return timeStampNs;
+    }
+
+    /**
+     * Retourne les octets du message, la chaîne d'octets n'étant créée qu'au premier appel
+     *
+     * @return les octets du message
+     */
+    public ByteString bytes() {
+        ByteString bytes = this.bytes;
+        if (bytes == null) {
+            byte[] chain = new byte[LENGTH];
+            for (int i = 0; i < Long.BYTES; i++) {
+                chain[i] = (byte) (high >>> (Byte.SIZE * (Long.BYTES - 1 - i)));
+            }
+            for (int i = 0; i < LOW_BYTES; i++) {
+                chain[Long.BYTES + i] = (byte) (low >>> (Byte.SIZE * (LOW_BYTES - 1 - i)));
+            }
+            bytes = new ByteString(chain);
+            this.bytes = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Retourne les 8 premiers octets du message, le premier étant l'octet de poids fort
+     *
+     * @return les 64 premiers bits du message
+     */
+    public long high() {
+        return high;
+    }
+
+    /**
+     * Retourne les 6 derniers octets du message, dans les 48 bits de poids faible
+     *
+     * @return les 48 derniers bits du message
+     */
+    public long low() {
+        return low;
+    }
+
     /**
      * Donne le format du message, c'est-à-dire l'attribut DF stocké dans son premier octet,
      *
      * @return l'attribut DF stocké dans son premier octet
      */
     public int downLinkFormat() {
-        int byte0 = (byte) bytes.byteAt(0);
-        return Bits.extractUInt(byte0, START_DOWN_LINK_FORMAT, SIZE_DOWN_LINK_FORMAT);
+        return Bits.extractUInt(high, START_DOWN_LINK_FORMAT, SIZE_DOWN_LINK_FORMAT);
     }
 
     /**
-     * Donne l'adresse OACI de l'expéditeur du message,
+     * Donne l'adresse OACI de l'expéditeur du message, prise dans le cache de IcaoAddress.of afin
+     * de n'allouer en général aucun objet pour un aéronef vu récemment
      *
      * @return l'adresse OACI
      */
     public IcaoAddress icaoAddress() {
-        long address = bytes.bytesInRange(FROM_INDEX_ICAO_ADDRESS, TO_INDEX_ICAO_ADDRESS);
-        return new IcaoAddress(HEXFORMAT.toHexDigits(address, 6));
+        return IcaoAddress.of(Bits.extractUInt(high, START_ICAO_ADDRESS, SIZE_ICAO_ADDRESS));
     }
 
     /**
@@ -109,7 +216,7 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
      * @return l'attribut ME du message
      */
     public long payload() {
-        return bytes.bytesInRange(FROM_INDEX_ATTRIBUT_ME, TO_INDEX_ATTRIBUT_ME);
+        return ((high & ME_HIGH_MASK) << ME_LOW_BITS) | (low >>> ME_LOW_BITS);
     }
 
     /**
@@ -121,4 +228,37 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
     public int typeCode() {
         return typeCode(payload());
     }
-}
\ No newline at end of file
+
+    /**
+     * Vérifie l'égalité de deux messages, c.-à-d. de leurs horodatages et de leurs octets
+     *
+     * @param that l'objet à comparer
+     * @return vrai ssi l'objet donné est un message égal à celui-ci
+     */
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof RawMessage m
+                && timeStampNs == m.timeStampNs && high == m.high && low == m.low;
+    }
+
+    /**
+     * Retourne une valeur de hachage du message
+     *
+     * @return la valeur de hachage du message
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(timeStampNs, high, low);
+    }
+
+    /**
+     * Retourne une représentation textuelle du message, de la même forme que celle d'un
+     * enregistrement
+     *
+     * @return la représentation textuelle du message
+     */
+    @Override
+    public String toString() {
+        return "RawMessage[timeStampNs=" + timeStampNs + ", bytes=" + bytes() + "]";
+    }
+}
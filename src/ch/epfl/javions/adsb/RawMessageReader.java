@@ -0,0 +1,66 @@
+package ch.epfl.javions.adsb;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Représente un lecteur de fichier de messages ADS-B bruts enregistrés, chaque message y étant
+ * stocké sous la forme de son horodatage (8 octets, poids fort en premier) suivi de ses 14 octets.
+ * Les messages sont lus un à un, à la demande, de sorte que la mémoire utilisée ne dépend pas de
+ * la taille du fichier.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class RawMessageReader implements RawMessageSource, Closeable {
+
+    /**
+     * RECORD_SIZE représente la taille en octets d'un message enregistré, horodatage compris
+     */
+    public static final int RECORD_SIZE = Long.BYTES + RawMessage.LENGTH;
+    private static final int LOW_INT_OFFSET = 2 * Long.BYTES;
+    private static final int LOW_SHORT_OFFSET = LOW_INT_OFFSET + Integer.BYTES;
+
+    private final InputStream stream;
+    private final byte[] record = new byte[RECORD_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(record);
+
+    /**
+     * Construit un lecteur de messages lisant le flot donné, qu'il se charge de tamponner.
+     *
+     * @param stream le flot d'entrée contenant les messages enregistrés
+     * @throws NullPointerException si le flot est nul
+     */
+    public RawMessageReader(InputStream stream) {
+        this.stream = new BufferedInputStream(Objects.requireNonNull(stream));
+    }
+
+    /**
+     * Retourne le prochain message du flot, ou null si la fin du flot est atteinte. Un message
+     * tronqué à la fin du flot est ignoré.
+     *
+     * @return le prochain message du flot, ou null s'il n'y en a plus
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @Override
+    public RawMessage nextMessage() throws IOException {
+        if (stream.readNBytes(record, 0, RECORD_SIZE) < RECORD_SIZE) return null;
+        long low = Integer.toUnsignedLong(buffer.getInt(LOW_INT_OFFSET)) << Short.SIZE
+                | Short.toUnsignedLong(buffer.getShort(LOW_SHORT_OFFSET));
+        return new RawMessage(buffer.getLong(0), buffer.getLong(Long.BYTES), low);
+    }
+
+    /**
+     * Ferme le flot lu.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
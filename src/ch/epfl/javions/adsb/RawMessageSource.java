@@ -0,0 +1,33 @@
+package ch.epfl.javions.adsb;
+
+import java.io.IOException;
+
+/**
+ * Représente une source de messages ADS-B bruts enregistrés, fournis dans l'ordre de leurs
+ * horodatages, qu'ils soient lus à la suite dans un fichier ou depuis un journal indexé.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public interface RawMessageSource {
+
+    /**
+     * Retourne le prochain message de la source, ou null si la fin de la source est atteinte.
+     *
+     * @return le prochain message de la source, ou null s'il n'y en a plus
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    RawMessage nextMessage() throws IOException;
+
+    /**
+     * Place la source sur le premier message dont l'horodatage est supérieur ou égal à celui
+     * donné. Par défaut, la source ne permet pas de se placer.
+     *
+     * @param timeStampNs l'horodatage sur lequel se placer, en nanosecondes
+     * @throws IOException                   en cas d'erreur d'entrée/sortie
+     * @throws UnsupportedOperationException si la source ne permet pas de se placer
+     */
+    default void seek(long timeStampNs) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+}
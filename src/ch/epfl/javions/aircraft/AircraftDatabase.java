@@ -2,11 +2,17 @@ package ch.epfl.javions.aircraft;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.zip.ZipFile;
 
 /**
  * Représente la base de données mictronics des aéronefs
+ * <p>
+ * Tant que son index n'a pas été chargé par la méthode load, chaque recherche lit le fichier CSV
+ * correspondant du fichier zip. Une fois l'index chargé, qui peut l'être sur un autre fil pendant
+ * que des recherches sont faites, les recherches se font en mémoire. L'index peut aussi être
+ * projeté depuis un fichier compilé, bien plus rapidement qu'il n'est construit.
  *
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
@@ -15,6 +21,7 @@ public final class AircraftDatabase {
 
     public static final String REGEX = ",";
     private final String fileName;
+    private volatile AircraftIndex index;
 
     /**
      * Construit une base de données à partir du nom du fichier
@@ -27,6 +34,50 @@ public final class AircraftDatabase {
         this.fileName = fileName;
     }
 
+    /**
+     * Charge en mémoire l'index de la base de données, utilisé par toutes les recherches
+     * suivantes, et le retourne.
+     *
+     * @return l'index de la base de données
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public AircraftIndex load() throws IOException {
+        AircraftIndex index = AircraftIndex.load(fileName);
+        this.index = index;
+        return index;
+    }
+
+    /**
+     * Charge l'index de la base de données, utilisé par toutes les recherches suivantes, depuis
+     * le fichier compilé donné, et le retourne. Si ce fichier est absent, ou ne provient pas de la
+     * version actuelle du fichier zip, ce qui est vérifié au moyen de la somme de contrôle de ce
+     * dernier, l'index est construit à partir du fichier zip, puis écrit dans le fichier compilé.
+     * Ce dernier n'étant qu'un cache, l'échec de son écriture, par exemple dans un dossier en
+     * lecture seule, n'empêche pas le chargement : l'index est tout de même retourné et utilisé
+     * par les recherches, et sera simplement reconstruit au prochain chargement.
+     *
+     * @param compiledFile le chemin du fichier compilé
+     * @return l'index de la base de données
+     * @throws IOException en cas d'erreur d'entrée/sortie lors de la lecture du fichier zip ou du
+     *                     fichier compilé
+     */
+    public AircraftIndex load(Path compiledFile) throws IOException {
+        long checksum = AircraftIndex.checksum(Path.of(fileName));
+        AircraftIndex index = AircraftIndex.map(compiledFile, checksum);
+        if (index == null) {
+            index = AircraftIndex.load(fileName);
+            this.index = index;
+            try {
+                index.write(compiledFile, checksum);
+            } catch (IOException ignored) {
+                // le fichier compilé sera reconstruit au prochain chargement
+            }
+            return index;
+        }
+        this.index = index;
+        return index;
+    }
+
     /**
      * Arrête la recherche lorsque nous avons passé l'adresse cible
      *
@@ -35,6 +86,8 @@ public final class AircraftDatabase {
      * @throws IOException en cas d'erreur d'entrée/sorties
      */
     public AircraftData get(IcaoAddress address) throws IOException {
+        AircraftIndex index = this.index;
+        if (index != null) return index.get(address);
 
         String crc = address.string();
         String fileAddress = crc.substring(crc.length() - 2);
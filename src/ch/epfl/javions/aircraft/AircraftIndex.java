@@ -0,0 +1,394 @@
+package ch.epfl.javions.aircraft;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Représente un index compact, en mémoire, de la base de données mictronics des aéronefs.
+ * <p>
+ * Les adresses OACI des aéronefs sont stockées, triées, dans un tableau d'entiers dans lequel
+ * elles sont recherchées par dichotomie. Leurs immatriculations, indicateurs de type, modèles et
+ * descriptions sont stockés à la suite, encodés en UTF-8, dans un unique tableau d'octets, un
+ * tableau d'entiers donnant le début de chacun d'eux, et leurs catégories de turbulence de sillage
+ * sont stockées sous la forme de leurs ordinaux. Les caractéristiques d'un aéronef ne sont créées
+ * qu'à la demande.
+ * <p>
+ * L'index peut être écrit dans un fichier compilé, constitué d'un en-tête de 32 octets
+ * (le nombre magique, la version du format, la somme de contrôle du fichier zip dont l'index
+ * provient, le nombre d'aéronefs, la taille des chaînes et la somme de contrôle du corps) suivi
+ * des quatre tableaux ci-dessus, dans l'ordre des adresses, des débuts des chaînes, des catégories
+ * et des chaînes, qui en forment le corps. Un tel fichier est projeté en mémoire par la méthode
+ * map, qui ne le lit qu'une fois, séquentiellement, pour vérifier la somme de contrôle de son
+ * corps, de sorte qu'un fichier tronqué ou endommagé n'est jamais utilisé.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class AircraftIndex {
+
+    private static final String ENTRY_SUFFIX = ".csv";
+    private static final char SEPARATOR = ',';
+    private static final int ADDRESS_LENGTH = 6;
+    private static final int FIELDS = 4;
+    private static final int REGISTRATION = 0;
+    private static final int TYPE_DESIGNATOR = 1;
+    private static final int MODEL = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final WakeTurbulenceCategory[] CATEGORIES = WakeTurbulenceCategory.values();
+
+    /**
+     * MAGIC représente le nombre magique identifiant les fichiers compilés, c.-à-d. les
+     * caractères "JVDB", HEADER_SIZE la taille en octets de leur en-tête et ROW_BYTES celle des
+     * adresses, débuts des chaînes et catégories d'un aéronef
+     */
+    private static final int MAGIC = 0x4A564442;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int ROW_BYTES = (FIELDS + 1) * Integer.BYTES + 1;
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
+    private final int size;
+    private final ByteBuffer addresses;
+    private final ByteBuffer fieldStarts;
+    private final ByteBuffer categories;
+    private final ByteBuffer pool;
+    private final long loadTimeNs;
+
+    private AircraftIndex(int size, ByteBuffer addresses, ByteBuffer fieldStarts,
+                          ByteBuffer categories, ByteBuffer pool, long loadTimeNs) {
+        this.size = size;
+        this.addresses = addresses;
+        this.fieldStarts = fieldStarts;
+        this.categories = categories;
+        this.pool = pool;
+        this.loadTimeNs = loadTimeNs;
+    }
+
+    /**
+     * Construit l'index de la base de données contenue dans le fichier zip donné, en lisant une
+     * fois pour toutes chacun de ses fichiers CSV. Les lignes dont les 6 premiers caractères ne
+     * sont pas une adresse OACI sont ignorées.
+     *
+     * @param fileName le nom du fichier zip de la base de données
+     * @return l'index de la base de données
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static AircraftIndex load(String fileName) throws IOException {
+        long start = System.nanoTime();
+        Builder builder = new Builder();
+        try (ZipFile zipFile = new ZipFile(fileName)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(ENTRY_SUFFIX)) continue;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        zipFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) builder.add(line);
+                }
+            }
+        }
+        return builder.build(start);
+    }
+
+    /**
+     * Retourne la somme de contrôle CRC-32C du contenu du fichier donné, utilisée pour vérifier
+     * qu'un fichier compilé provient bien de la version actuelle du fichier zip.
+     *
+     * @param path le chemin du fichier
+     * @return la somme de contrôle du fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static long checksum(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer.clear()) >= 0) crc.update(buffer.flip());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Projette en mémoire le fichier compilé donné et retourne l'index qu'il contient, ou null si
+     * le fichier n'existe pas, n'est pas un fichier compilé de la version actuelle du format,
+     * provient d'un fichier zip dont la somme de contrôle n'est pas celle donnée, ou si son corps
+     * n'a pas la somme de contrôle enregistrée dans son en-tête. Le fichier est fermé dès la fin de
+     * la projection, celle-ci restant valide.
+     *
+     * @param path     le chemin du fichier compilé
+     * @param checksum la somme de contrôle du fichier zip dont l'index doit provenir
+     * @return l'index contenu dans le fichier compilé, ou null s'il est absent, périmé ou
+     * endommagé
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static AircraftIndex map(Path path, long checksum) throws IOException {
+        long start = System.nanoTime();
+        if (!Files.isRegularFile(path)) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) return null;
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (file.getInt() != MAGIC || file.getInt() != VERSION || file.getLong() != checksum) {
+                return null;
+            }
+            int size = file.getInt();
+            int poolSize = file.getInt();
+            long bodyChecksum = file.getLong();
+            long expectedSize = HEADER_SIZE + (long) size * ROW_BYTES + Integer.BYTES + poolSize;
+            if (size < 0 || poolSize < 0 || fileSize != expectedSize) return null;
+            CRC32C crc = new CRC32C();
+            crc.update(file.slice());
+            if (crc.getValue() != bodyChecksum) return null;
+
+            ByteBuffer addresses = next(file, size * Integer.BYTES);
+            ByteBuffer fieldStarts = next(file, (FIELDS * size + 1) * Integer.BYTES);
+            ByteBuffer categories = next(file, size);
+            ByteBuffer pool = next(file, poolSize);
+            if (fieldStarts.getInt(0) != 0 || fieldStarts.getInt(FIELDS * size * Integer.BYTES)
+                    != poolSize) {
+                return null;
+            }
+            return new AircraftIndex(size, addresses, fieldStarts, categories, pool,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Écrit l'index dans le fichier compilé donné, en y associant la somme de contrôle donnée du
+     * fichier zip dont il provient. Le fichier est d'abord écrit à côté de sa destination et
+     * synchronisé avec le disque, puis renommé, de sorte qu'un fichier compilé n'est jamais
+     * partiellement écrit, même en cas d'arrêt du système.
+     *
+     * @param path     le chemin du fichier compilé
+     * @param checksum la somme de contrôle du fichier zip dont l'index provient
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void write(Path path, long checksum) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), null);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer[] body = {
+                    addresses.duplicate().rewind(),
+                    fieldStarts.duplicate().rewind(),
+                    categories.duplicate().rewind(),
+                    pool.duplicate().rewind()
+            };
+            CRC32C crc = new CRC32C();
+            for (ByteBuffer buffer : body) crc.update(buffer.duplicate());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(checksum)
+                    .putInt(size)
+                    .putInt(pool.capacity())
+                    .putLong(crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) channel.write(header);
+            long remaining = footprintBytes();
+            while (remaining > 0) remaining -= channel.write(body);
+            channel.force(true);
+            Files.move(temporary, path,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Retourne les caractéristiques de l'aéronef dont l'adresse OACI est donnée, ou null si
+     * l'adresse n'est pas dans l'index.
+     *
+     * @param address l'adresse OACI de l'aéronef
+     * @return les caractéristiques de l'aéronef, ou null
+     */
+    public AircraftData get(IcaoAddress address) {
+        int row = row(address.value());
+        if (row < 0) return null;
+        return new AircraftData(new AircraftRegistration(field(row, REGISTRATION)),
+                new AircraftTypeDesignator(field(row, TYPE_DESIGNATOR)),
+                field(row, MODEL),
+                new AircraftDescription(field(row, DESCRIPTION)),
+                CATEGORIES[categories.get(row)]);
+    }
+
+    /**
+     * Retourne le nombre d'aéronefs de l'index.
+     *
+     * @return le nombre d'aéronefs de l'index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la durée de la construction ou de la projection de l'index, en nanosecondes.
+     *
+     * @return la durée du chargement de l'index
+     */
+    public long loadTimeNs() {
+        return loadTimeNs;
+    }
+
+    /**
+     * Retourne la taille, en octets, des tableaux de l'index, qui ne sont pas forcément tous
+     * chargés en mémoire si l'index est projeté depuis un fichier compilé.
+     *
+     * @return la taille des tableaux de l'index
+     */
+    public long footprintBytes() {
+        return (long) addresses.capacity() + fieldStarts.capacity() + categories.capacity()
+                + pool.capacity();
+    }
+
+    /**
+     * Retourne l'index de la première ligne de l'adresse donnée, ou -1 si elle n'est pas dans
+     * l'index.
+     */
+    private int row(int address) {
+        int from = 0;
+        int to = size;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (address(middle) < address) from = middle + 1;
+            else to = middle;
+        }
+        return from < size && address(from) == address ? from : -1;
+    }
+
+    /**
+     * Retourne la tranche du tampon donné commençant à sa position et de la longueur donnée, et
+     * avance sa position au-delà de la tranche.
+     */
+    private static ByteBuffer next(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    private int address(int row) {
+        return addresses.getInt(row * Integer.BYTES);
+    }
+
+    private int fieldStart(int index) {
+        return fieldStarts.getInt(index * Integer.BYTES);
+    }
+
+    private String field(int row, int field) {
+        int start = fieldStart(row * FIELDS + field);
+        byte[] bytes = new byte[fieldStart(row * FIELDS + field + 1) - start];
+        pool.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Représente un bâtisseur d'index, qui accumule les lignes dans l'ordre des fichiers, puis
+     * les trie selon leurs adresses
+     */
+    private static final class Builder {
+        private int[] addresses = new int[INITIAL_CAPACITY];
+        private int[] fieldStarts = new int[FIELDS * INITIAL_CAPACITY + 1];
+        private byte[] pool = new byte[FIELDS * INITIAL_CAPACITY];
+        private byte[] categories = new byte[INITIAL_CAPACITY];
+        private int size;
+        private int poolSize;
+
+        private void add(String line) {
+            if (line.length() < ADDRESS_LENGTH) return;
+            int address;
+            try {
+                address = HexFormat.fromHexDigits(line, 0, ADDRESS_LENGTH);
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            if (size == addresses.length) grow();
+
+            int separator = line.indexOf(SEPARATOR);
+            for (int field = 0; field < FIELDS; field++) {
+                fieldStarts[size * FIELDS + field] = poolSize;
+                int next = nextSeparator(line, separator);
+                append(column(line, separator, next));
+                separator = next;
+            }
+            fieldStarts[size * FIELDS + FIELDS] = poolSize;
+            categories[size] = (byte) WakeTurbulenceCategory
+                    .of(column(line, separator, nextSeparator(line, separator)))
+                    .ordinal();
+            addresses[size++] = address;
+        }
+
+        /**
+         * Retourne la position du séparateur suivant celui dont la position est donnée, ou la
+         * longueur de la ligne s'il n'y en a pas.
+         */
+        private static int nextSeparator(String line, int separator) {
+            if (separator < 0 || separator >= line.length()) return line.length();
+            int next = line.indexOf(SEPARATOR, separator + 1);
+            return next < 0 ? line.length() : next;
+        }
+
+        private static String column(String line, int separator, int next) {
+            return separator < 0 || separator >= line.length()
+                    ? ""
+                    : line.substring(separator + 1, next);
+        }
+
+        private void append(String field) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            if (poolSize + bytes.length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(2 * pool.length, poolSize + bytes.length));
+            }
+            System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+            poolSize += bytes.length;
+        }
+
+        private void grow() {
+            addresses = Arrays.copyOf(addresses, 2 * addresses.length);
+            fieldStarts = Arrays.copyOf(fieldStarts, FIELDS * addresses.length + 1);
+            categories = Arrays.copyOf(categories, addresses.length);
+        }
+
+        /**
+         * Construit l'index en triant les lignes selon leurs adresses, celles de même adresse
+         * restant dans l'ordre des fichiers.
+         */
+        private AircraftIndex build(long startNs) {
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) order[i] = (long) addresses[i] << Integer.SIZE | i;
+            Arrays.sort(order);
+
+            ByteBuffer sortedAddresses = ByteBuffer.allocate(size * Integer.BYTES);
+            ByteBuffer sortedStarts = ByteBuffer.allocate((FIELDS * size + 1) * Integer.BYTES);
+            ByteBuffer sortedCategories = ByteBuffer.allocate(size);
+            ByteBuffer sortedPool = ByteBuffer.allocate(poolSize);
+            for (int i = 0; i < size; i++) {
+                int row = (int) order[i];
+                int start = fieldStarts[row * FIELDS];
+                for (int field = 0; field < FIELDS; field++) {
+                    sortedStarts.putInt(sortedPool.position()
+                            + fieldStarts[row * FIELDS + field] - start);
+                }
+                sortedPool.put(pool, start, fieldStarts[row * FIELDS + FIELDS] - start);
+                sortedAddresses.putInt(addresses[row]);
+                sortedCategories.put(categories[row]);
+            }
+            sortedStarts.putInt(sortedPool.position());
+            return new AircraftIndex(size, sortedAddresses.flip(), sortedStarts.flip(),
+                    sortedCategories.flip(), sortedPool.flip(), System.nanoTime() - startNs);
+        }
+    }
+}
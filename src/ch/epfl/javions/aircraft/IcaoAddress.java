@@ -1,30 +1,134 @@
 package ch.epfl.javions.aircraft;
 
 import ch.epfl.javions.Preconditions;
+
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Pattern;
 
 /**
- * Représente une adresse OACI
+ * Représente une adresse OACI, c.-à-d. une valeur de 24 bits dont la représentation textuelle
+ * n'est calculée qu'à la première demande.
+ * <p>
+ * Les adresses obtenues par la méthode of sont conservées dans un cache de taille fixe, à
+ * correspondance directe : une même valeur donne la même instance tant qu'aucune autre adresse ne
+ * l'a remplacée dans sa case, de sorte que l'extraction de l'adresse d'un message n'alloue en
+ * général rien pour un aéronef vu récemment. La taille du cache étant bornée, les adresses
+ * erronées, ou celles d'aéronefs disparus depuis longtemps, ne s'y accumulent pas.
  *
- * @param string représente la chaîne contenant la représentation textuelle de l'adresse OACI
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
  */
 
-public record IcaoAddress(String string) {
+public final class IcaoAddress {
     /**
      * Pattern de IcaoAddress
      */
     private static final Pattern pattern = Pattern.compile("[0-9A-F]{6}");
+    private static final HexFormat HEX_FORMAT = HexFormat.of().withUpperCase();
+    private static final int BITS = 24;
+    private static final int DIGITS = 6;
+
+    /**
+     * Le cache contient 2^CACHE_BITS cases, bien plus que le nombre d'aéronefs reçus en même temps
+     * par un récepteur, chaque adresse n'ayant qu'une seule case possible
+     */
+    private static final int CACHE_BITS = 14;
+    private static final AtomicReferenceArray<IcaoAddress> CACHE =
+            new AtomicReferenceArray<>(1 << CACHE_BITS);
+
+    private final int value;
+    private String string;
 
     /**
      * Construit une adresse OACI à partir de la chaîne passée en argument
      *
+     * @param string la chaîne contenant la représentation textuelle de l'adresse OACI
      * @throws IllegalArgumentException si le string passé en argument n'est pas une adresse
      * OACi valide
      */
-    public IcaoAddress {
+    public IcaoAddress(String string) {
         Preconditions.checkArgument(pattern.matcher(string).matches());
+        this.value = HexFormat.fromHexDigits(string);
+        this.string = string;
+    }
+
+    private IcaoAddress(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Retourne l'adresse OACI dont la valeur est donnée, sans validation textuelle, en la prenant
+     * dans le cache si elle s'y trouve, ou en l'y plaçant sinon.
+     *
+     * @param value la valeur de 24 bits de l'adresse
+     * @return une adresse OACI de la valeur donnée
+     * @throws IllegalArgumentException si la valeur n'est pas comprise entre 0 et 2^24 - 1
+     */
+    public static IcaoAddress of(int value) {
+        Preconditions.checkArgument(value >>> BITS == 0);
+        int slot = (value * 0x9E3779B1) >>> (Integer.SIZE - CACHE_BITS);
+        IcaoAddress address = CACHE.get(slot);
+        if (address == null || address.value != value) {
+            address = new IcaoAddress(value);
+            CACHE.set(slot, address);
+        }
+        return address;
+    }
+
+    /**
+     * Retourne la valeur de 24 bits de l'adresse.
+     *
+     * @return la valeur de l'adresse
+     */
+    public int value() {
+        return value;
+    }
+
+    /**
+     * Retourne la représentation textuelle de l'adresse, c.-à-d. ses 6 chiffres hexadécimaux
+     * majuscules.
+     *
+     * @return la représentation textuelle de l'adresse
+     */
+    public String string() {
+        String string = this.string;
+        if (string == null) {
+            string = HEX_FORMAT.toHexDigits(value, DIGITS);
+            this.string = string;
+        }
+        return string;
+    }
+
+    /**
+     * Vérifie l'égalité de deux adresses, c.-à-d. de leurs valeurs
+     *
+     * @param that l'objet à comparer
+     * @return vrai ssi l'objet donné est une adresse égale à celle-ci
+     */
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof IcaoAddress address && value == address.value;
     }
-}
 
+    /**
+     * Retourne une valeur de hachage de l'adresse
+     *
+     * @return la valeur de hachage de l'adresse
+     */
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+
+    /**
+     * Retourne une représentation textuelle de l'adresse, de la même forme que celle d'un
+     * enregistrement
+     *
+     * @return la représentation textuelle de l'adresse
+     */
+    @Override
+    public String toString() {
+        return "IcaoAddress[string=" + string() + "]";
+    }
+}
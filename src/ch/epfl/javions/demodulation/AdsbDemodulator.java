@@ -1,9 +1,11 @@
 package ch.epfl.javions.demodulation;
 
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.ErrorCorrector;
 import ch.epfl.javions.adsb.RawMessage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
 
 
 /**
@@ -15,25 +17,29 @@ import java.util.Arrays;
 public final class AdsbDemodulator {
 
     private static final int NUMBER_SAMPLES_PREAMBULE = 80;
-    private static final int POWER_WINDOW_SIZE = 1200;
+    static final int POWER_WINDOW_SIZE = 1200;
     private static final int INDEX_PEAKS_1 = 0;
     private static final int INDEX_PEAKS_2 = 10;
     private static final int INDEX_PEAKS_3 = 35;
     private static final int INDEX_PEAKS_4 = 45;
-    private static final int INDEX_PEAKS_AFTER_1 = 1;
-    private static final int INDEX_PEAKS_AFTER_2 = 11;
-    private static final int INDEX_PEAKS_AFTER_3 = 36;
-    private static final int INDEX_PEAKS_AFTER_4 = 46;
     private static final int INDEX_VALLEYS_1 = 5;
     private static final int INDEX_VALLEYS_2 = 15;
     private static final int INDEX_VALLEYS_3 = 20;
     private static final int INDEX_VALLEYS_4 = 25;
     private static final int INDEX_VALLEYS_5 = 30;
     private static final int INDEX_VALLEYS_6 = 40;
-    private static final int NANOSEC_BY_POSITION = 100;
+    static final int NANOSEC_BY_POSITION = 100;
     public static final int DOWNLINK_FORMAT = 17;
+    private static final int DOWNLINK_FORMAT_BITS = 5;
+    private static final int MESSAGE_BITS = RawMessage.LENGTH * Byte.SIZE;
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
     private final PowerWindow window;
+    private final ErrorCorrector corrector;
+    private final long timeStampOffsetNs;
     private final byte[] message = new byte[RawMessage.LENGTH];
+    private long high;
+    private long low;
+    private int previousSumPeaks;
 
     /**
      * Construit un démodulateur de messages ADS-B à partir du flux d'échantillons donné et retourne
@@ -43,7 +49,75 @@ public final class AdsbDemodulator {
      * @throws IOException si une erreur d'entrée-sortie survient
      */
     public AdsbDemodulator(InputStream samplesStream) throws IOException {
+        this(samplesStream, null);
+    }
+
+    /**
+     * Construit un démodulateur de messages ADS-B à partir du flux d'échantillons donné, corrigeant
+     * les erreurs des messages dont le CRC est invalide au moyen du correcteur donné
+     *
+     * @param samplesStream le flux d'échantillons
+     * @param corrector     le correcteur d'erreurs, ou null pour écarter ces messages
+     * @throws IOException si une erreur d'entrée-sortie survient
+     */
+    public AdsbDemodulator(InputStream samplesStream, ErrorCorrector corrector)
+            throws IOException {
         this.window = new PowerWindow(samplesStream, POWER_WINDOW_SIZE);
+        this.corrector = corrector;
+        this.timeStampOffsetNs = 0;
+    }
+
+    /**
+     * Construit un démodulateur de messages ADS-B obtenant ses échantillons de la source donnée,
+     * par exemple un fichier d'échantillons projeté en mémoire
+     *
+     * @param samples la source d'échantillons
+     * @throws IOException si une erreur d'entrée-sortie survient
+     */
+    public AdsbDemodulator(SampleSource samples) throws IOException {
+        this(samples, null);
+    }
+
+    /**
+     * Construit un démodulateur de messages ADS-B obtenant ses échantillons de la source donnée,
+     * corrigeant les erreurs des messages dont le CRC est invalide au moyen du correcteur donné
+     *
+     * @param samples   la source d'échantillons
+     * @param corrector le correcteur d'erreurs, ou null pour écarter ces messages
+     * @throws IOException si une erreur d'entrée-sortie survient
+     */
+    public AdsbDemodulator(SampleSource samples, ErrorCorrector corrector) throws IOException {
+        this.window = new PowerWindow(samples, POWER_WINDOW_SIZE);
+        this.corrector = corrector;
+        this.timeStampOffsetNs = 0;
+    }
+
+    /**
+     * Construit un démodulateur de messages ADS-B parcourant la fenêtre de puissance donnée, de
+     * taille POWER_WINDOW_SIZE, à partir de sa position actuelle
+     *
+     * @param window la fenêtre de puissance
+     */
+    AdsbDemodulator(PowerWindow window) {
+        this(window, 0, null);
+    }
+
+    /**
+     * Construit un démodulateur de messages ADS-B parcourant la fenêtre de puissance donnée, de
+     * taille POWER_WINDOW_SIZE, à partir de sa position actuelle, l'horodatage des messages étant
+     * augmenté du décalage donné, par exemple la durée du signal qui précède le premier
+     * échantillon de la fenêtre sans lui avoir été fourni, et corrigeant les erreurs des messages
+     * dont le CRC est invalide au moyen du correcteur donné
+     *
+     * @param window            la fenêtre de puissance
+     * @param timeStampOffsetNs le décalage des horodatages des messages, en nanosecondes
+     * @param corrector         le correcteur d'erreurs, ou null pour écarter ces messages
+     */
+    AdsbDemodulator(PowerWindow window, long timeStampOffsetNs, ErrorCorrector corrector) {
+        Preconditions.checkArgument(window.size() == POWER_WINDOW_SIZE);
+        this.window = window;
+        this.corrector = corrector;
+        this.timeStampOffsetNs = timeStampOffsetNs;
     }
 
     /**
@@ -55,70 +129,159 @@ public final class AdsbDemodulator {
      * @throws IOException si une erreur d'entrée-sortie survient
      */
     public RawMessage nextMessage() throws IOException {
-        //On appelle la méthode actualSumPeaks() pour seulement initialiser l'attribut sumPeaksActuel
-        // pour la toute premiere somme de peaks
-        int actualSumPeaks = actualSumPeaks();
-        int previousSumPeaks = 0;
+        if (!findMessage()) return null;
+        RawMessage rawMessage = new RawMessage(timeStampNs(), high, low);
+        skipMessage();
+        return rawMessage;
+    }
 
-        while (window.isFull()) {
+    /**
+     * Remplit le lot donné, préalablement vidé, avec les prochains messages ADS-B du flot
+     * d'échantillons passé au constructeur, jusqu'à ce que le lot soit plein ou que la fin du flot
+     * soit atteinte, et retourne leur nombre. Aucun message n'est alloué, et l'état de la
+     * recherche de préambules est conservé d'un appel à l'autre, de sorte qu'une suite d'appels
+     * trouve exactement les mêmes messages qu'une suite d'appels à nextMessage.
+     *
+     * @param batch le lot à remplir
+     * @return le nombre de messages placés dans le lot, 0 si la fin du flot a été atteinte
+     * @throws IOException si une erreur d'entrée-sortie survient
+     */
+    public int nextMessages(MessageBatch batch) throws IOException {
+        batch.clear();
+        while (!batch.isFull() && findMessage()) {
+            batch.add(timeStampNs(), high, low);
+            skipMessage();
+        }
+        return batch.size();
+    }
 
-            int nextSumPeaks = nextSumPeaks();
-            int sumValley = sumValley();
-            if (isValid(sumValley, nextSumPeaks, actualSumPeaks, previousSumPeaks)) {
-                RawMessage rawMessage = RawMessage.of(window.position()
-                        * NANOSEC_BY_POSITION, messageCalculator());
-
-                if (rawMessage != null && rawMessage.downLinkFormat() == DOWNLINK_FORMAT) {
-                    window.advanceBy(POWER_WINDOW_SIZE - 1);
-                    window.advance();
-                    return rawMessage;
-                }
+    /**
+     * Avance la fenêtre jusqu'au prochain message, dont les bits sont alors placés dans les
+     * attributs high et low, et retourne vrai, ou jusqu'à la fin du flot et retourne faux.
+     */
+    private boolean findMessage() throws IOException {
+        while (window.isFull()) {
+            int positions = window.fullPositions();
+            int candidate = nextCandidate(window.array(), window.arrayIndex(), positions);
+            if (candidate < 0) {
+                window.advanceBy(positions);
+                continue;
             }
-            previousSumPeaks = actualSumPeaks;
-            actualSumPeaks = nextSumPeaks;
+
+            window.advanceBy(candidate);
+            if (decode(window.array(), window.arrayIndex())) return true;
             window.advance();
         }
-        return null;
+        return false;
+    }
+
+    /**
+     * Avance la fenêtre d'une position sans y chercher de préambule, en retenant la somme des pics
+     * de cette position comme l'aurait fait son parcours, de sorte que la recherche se poursuive
+     * exactement comme si elle avait commencé une position plus tôt.
+     *
+     * @throws IOException si une erreur d'entrée-sortie survient
+     */
+    void skipPosition() throws IOException {
+        if (window.isFull()) previousSumPeaks = sumPeaks(window.array(), window.arrayIndex());
+        window.advance();
     }
 
-    private byte[] messageCalculator() {
-        Arrays.fill(message, (byte) 0);
-        for (int i = 0; i < message.length*Long.BYTES; i += Long.BYTES) {
-            putNextBit(message, i);
+    private long timeStampNs() {
+        return timeStampOffsetNs + window.position() * NANOSEC_BY_POSITION;
+    }
+
+    /**
+     * Avance la fenêtre au-delà du message trouvé par findMessage, la somme des pics de la
+     * position précédente n'ayant alors plus de sens.
+     */
+    private void skipMessage() throws IOException {
+        window.advanceBy(POWER_WINDOW_SIZE);
+        previousSumPeaks = 0;
+    }
+
+    /**
+     * Parcourt d'un seul tenant les positions successives de la fenêtre, dont les échantillons
+     * sont contigus dans le tableau donné, et retourne le décalage de la première d'entre elles
+     * où se trouve un préambule candidat, ou -1 s'il n'y en a aucun. La somme des vallées n'est
+     * calculée qu'aux maxima locaux de la somme des pics.
+     */
+    private int nextCandidate(int[] powers, int from, int positions) {
+        int actualSumPeaks = sumPeaks(powers, from);
+        for (int k = 0; k < positions; k++) {
+            int nextSumPeaks = sumPeaks(powers, from + k + 1);
+            boolean isCandidate = previousSumPeaks < actualSumPeaks
+                    && actualSumPeaks > nextSumPeaks
+                    && actualSumPeaks >= 2 * sumValleys(powers, from + k);
+            previousSumPeaks = actualSumPeaks;
+            if (isCandidate) return k;
+            actualSumPeaks = nextSumPeaks;
         }
-        return message;
+        return -1;
     }
 
-    private void putNextBit(byte[] message, int index) {
+    /**
+     * Décode le message dont le préambule commence à l'index donné du tableau, et retourne vrai
+     * ssi il s'agit d'un message de format DF17 dont le CRC est valide, ses bits étant alors
+     * placés dans les attributs high et low. Les 5 bits de l'attribut DF sont décodés en premier
+     * afin de rejeter au plus tôt la plupart des candidats, puis les 112 bits sont rassemblés dans
+     * deux valeurs de type long dont le CRC est calculé directement. Les octets du message ne sont
+     * placés dans le tableau message que pour être corrigés, si le CRC est invalide.
+     */
+    private boolean decode(int[] powers, int from) {
+        int downLinkFormat = (int) bits(powers, from, 0, DOWNLINK_FORMAT_BITS);
+        if (downLinkFormat != DOWNLINK_FORMAT) return false;
+
+        high = ((long) downLinkFormat << (Long.SIZE - DOWNLINK_FORMAT_BITS))
+                | bits(powers, from, DOWNLINK_FORMAT_BITS, Long.SIZE - DOWNLINK_FORMAT_BITS);
+        low = bits(powers, from, Long.SIZE, MESSAGE_BITS - Long.SIZE);
+        if (CRC.crc(high, low) == 0) return true;
+        if (corrector == null) return false;
+
         for (int i = 0; i < Long.BYTES; i++) {
-            message[index / Long.BYTES] = (byte) (message[index / Long.BYTES]
-                    | getBit(index + i) << (7 - i));
+            message[i] = (byte) (high >>> (Long.SIZE - Byte.SIZE * (i + 1)));
         }
-    }
+        for (int i = Long.BYTES; i < RawMessage.LENGTH; i++) {
+            message[i] = (byte) (low >>> (MESSAGE_BITS - Byte.SIZE * (i + 1)));
+        }
+        if (!corrector.correct(message)) return false;
 
-    private boolean isValid(int sumValley, int sumPeaksAfter, int sumPeaksActuel, int sumPeaksPrecedent) {
-        return (sumPeaksActuel >= 2 * sumValley) && (sumPeaksPrecedent < sumPeaksActuel) &&
-                (sumPeaksActuel > sumPeaksAfter);
+        high = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            high = (high << Byte.SIZE) | Byte.toUnsignedLong(message[i]);
+        }
+        low = 0;
+        for (int i = Long.BYTES; i < RawMessage.LENGTH; i++) {
+            low = (low << Byte.SIZE) | Byte.toUnsignedLong(message[i]);
+        }
+        return true;
     }
 
-    private byte getBit(int index) {
-        return (byte) (window.get(NUMBER_SAMPLES_PREAMBULE + 10 * index)
-                < window.get((NUMBER_SAMPLES_PREAMBULE + 5) + 10 * index) ? 0 : 1);
+    /**
+     * Retourne la valeur des size bits (au plus 63) du message commençant au bit d'index donné,
+     * le premier d'entre eux étant le bit de poids fort.
+     */
+    private static long bits(int[] powers, int from, int start, int size) {
+        long value = 0;
+        for (int i = start; i < start + size; i++) {
+            value = (value << 1) | bit(powers, from, i);
+        }
+        return value;
     }
 
-    private int nextSumPeaks() {
-        return window.get(INDEX_PEAKS_AFTER_1) + window.get(INDEX_PEAKS_AFTER_2) +
-                window.get(INDEX_PEAKS_AFTER_3) + window.get(INDEX_PEAKS_AFTER_4);
+    private static int bit(int[] powers, int from, int index) {
+        int position = from + NUMBER_SAMPLES_PREAMBULE + 10 * index;
+        return powers[position] < powers[position + 5] ? 0 : 1;
     }
 
-    private int actualSumPeaks() {
-        return window.get(INDEX_PEAKS_1) + window.get(INDEX_PEAKS_2) + window.get(INDEX_PEAKS_3)
-                + window.get(INDEX_PEAKS_4);
+    private static int sumPeaks(int[] powers, int from) {
+        return powers[from + INDEX_PEAKS_1] + powers[from + INDEX_PEAKS_2]
+                + powers[from + INDEX_PEAKS_3] + powers[from + INDEX_PEAKS_4];
     }
 
-    private int sumValley() {
-        return window.get(INDEX_VALLEYS_1) + window.get(INDEX_VALLEYS_2) + window.get(INDEX_VALLEYS_3)
-                + window.get(INDEX_VALLEYS_4) + window.get(INDEX_VALLEYS_5)
-                + window.get(INDEX_VALLEYS_6);
+    private static int sumValleys(int[] powers, int from) {
+        return powers[from + INDEX_VALLEYS_1] + powers[from + INDEX_VALLEYS_2]
+                + powers[from + INDEX_VALLEYS_3] + powers[from + INDEX_VALLEYS_4]
+                + powers[from + INDEX_VALLEYS_5] + powers[from + INDEX_VALLEYS_6];
     }
-}
\ No newline at end of file
+}
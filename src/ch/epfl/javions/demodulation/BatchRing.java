@@ -0,0 +1,159 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Représente un anneau borné de lots préalloués reliant deux étages d'un pipeline : le
+ * producteur obtient un lot libre, le remplit et le publie, le consommateur prend le lot publié
+ * le plus ancien, le lit et le libère. Les lots circulent ainsi entre deux files de capacité
+ * égale au nombre de lots, sans aucune allocation.
+ *
+ * @param <T> le type du tableau contenu dans chaque lot
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+final class BatchRing<T> {
+
+    /**
+     * Représente un lot de l'anneau, c.-à-d. un tableau préalloué, le nombre d'éléments valides
+     * qu'il contient et le nombre d'éléments abandonnés par le producteur juste avant lui
+     *
+     * @param <T> le type du tableau contenu dans le lot
+     */
+    static final class Batch<T> {
+        private final T data;
+        private int size;
+        private long skipped;
+
+        private Batch(T data) {
+            this.data = data;
+        }
+
+        /**
+         * Retourne le tableau contenu dans le lot.
+         *
+         * @return le tableau contenu dans le lot
+         */
+        T data() {
+            return data;
+        }
+
+        /**
+         * Retourne le nombre d'éléments valides du lot.
+         *
+         * @return le nombre d'éléments valides du lot
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Retourne le nombre d'éléments abandonnés par le producteur entre le lot publié
+         * précédemment et celui-ci.
+         *
+         * @return le nombre d'éléments abandonnés juste avant le lot
+         */
+        long skipped() {
+            return skipped;
+        }
+    }
+
+    private final BlockingQueue<Batch<T>> free;
+    private final BlockingQueue<Batch<T>> published;
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * Construit un anneau contenant le nombre de lots donné, dont les tableaux sont créés par la
+     * fonction donnée.
+     *
+     * @param capacity le nombre de lots de l'anneau
+     * @param factory  la fonction créant le tableau de chaque lot
+     * @throws IllegalArgumentException si le nombre de lots n'est pas strictement positif
+     */
+    BatchRing(int capacity, Supplier<T> factory) {
+        Preconditions.checkArgument(capacity > 0);
+        free = new ArrayBlockingQueue<>(capacity);
+        published = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) free.add(new Batch<>(factory.get()));
+    }
+
+    /**
+     * Retourne un lot libre, ou null si l'anneau est plein, ce qui est compté comme un débordement.
+     *
+     * @return un lot libre, ou null si l'anneau est plein
+     */
+    Batch<T> tryAcquire() {
+        Batch<T> batch = free.poll();
+        if (batch == null) overflows.incrementAndGet();
+        return batch;
+    }
+
+    /**
+     * Retourne un lot libre, en attendant qu'il y en ait un si l'anneau est plein, ce qui est
+     * compté comme un débordement.
+     *
+     * @return un lot libre
+     * @throws InterruptedException si le fil est interrompu pendant l'attente
+     */
+    Batch<T> acquire() throws InterruptedException {
+        Batch<T> batch = tryAcquire();
+        return batch != null ? batch : free.take();
+    }
+
+    /**
+     * Publie le lot donné, obtenu de cet anneau, contenant le nombre d'éléments valides donné.
+     *
+     * @param batch le lot à publier
+     * @param size  le nombre d'éléments valides du lot
+     */
+    void publish(Batch<T> batch, int size) {
+        publish(batch, size, 0);
+    }
+
+    /**
+     * Publie le lot donné, obtenu de cet anneau, contenant le nombre d'éléments valides donné et
+     * précédé du nombre donné d'éléments abandonnés depuis le lot publié précédemment.
+     *
+     * @param batch   le lot à publier
+     * @param size    le nombre d'éléments valides du lot
+     * @param skipped le nombre d'éléments abandonnés juste avant le lot
+     */
+    void publish(Batch<T> batch, int size, long skipped) {
+        batch.size = size;
+        batch.skipped = skipped;
+        published.add(batch);
+    }
+
+    /**
+     * Retourne le plus ancien lot publié, en attendant qu'il y en ait un.
+     *
+     * @return le plus ancien lot publié
+     * @throws InterruptedException si le fil est interrompu pendant l'attente
+     */
+    Batch<T> take() throws InterruptedException {
+        return published.take();
+    }
+
+    /**
+     * Rend libre le lot donné, obtenu par take, une fois qu'il a été lu.
+     *
+     * @param batch le lot à libérer
+     */
+    void release(Batch<T> batch) {
+        free.add(batch);
+    }
+
+    /**
+     * Retourne le nombre de fois où le producteur a trouvé l'anneau plein.
+     *
+     * @return le nombre de débordements de l'anneau
+     */
+    long overflows() {
+        return overflows.get();
+    }
+}
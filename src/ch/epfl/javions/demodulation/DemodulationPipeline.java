@@ -0,0 +1,356 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.ErrorCorrector;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.adsb.MessageParser;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Représente un pipeline de démodulation en direct, dont chaque étage s'exécute sur son propre
+ * fil : la lecture des octets de la radio, le décodage des échantillons et le calcul de leur
+ * puissance, la détection des messages (préambule et CRC), et enfin leur analyse par
+ * MessageParser. Les étages sont reliés par des anneaux bornés de lots préalloués. Le dernier
+ * étage peut aussi transmettre chaque message brut, avant son analyse, à un consommateur qui
+ * l'enregistre par exemple dans un journal.
+ * <p>
+ * L'étage de lecture n'est jamais bloqué par les étages suivants : lorsque son anneau est plein,
+ * le lot lu est abandonné et compté comme un débordement. Le nombre d'échantillons abandonnés
+ * accompagne le lot suivant le long du pipeline, de sorte que les horodatages des messages
+ * suivants restent exacts, et le signal n'est jamais raccordé par-dessus la lacune : le calcul de
+ * puissance et la fenêtre de détection repartent de zéro après elle, comme au début du flot. Les
+ * autres étages attendent que leur anneau ait de la place, chaque attente étant comptée comme un
+ * débordement de l'étage.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class DemodulationPipeline {
+
+    private static final int POWER_BATCH_SIZE = PowerWindow.BATCH_SIZE;
+    private static final int SAMPLES_BATCH_SIZE = 2 * POWER_BATCH_SIZE;
+    private static final int BYTES_BATCH_SIZE = Short.BYTES * SAMPLES_BATCH_SIZE;
+    private static final int BYTES_PER_POWER = BYTES_BATCH_SIZE / POWER_BATCH_SIZE;
+
+    /**
+     * BYTES_BATCHES représente le nombre de lots d'octets de l'anneau de lecture, qui peut
+     * contenir environ 0,4 seconde de signal
+     */
+    private static final int BYTES_BATCHES = 32;
+    private static final int POWER_BATCHES = 8;
+    private static final int MESSAGES_CAPACITY = 1 << 10;
+
+    /**
+     * END représente le message marquant la fin du flot de messages entre les deux derniers étages
+     */
+    private static final RawMessage END = new RawMessage(0, 0, 0);
+
+    private final InputStream stream;
+    private final Consumer<Message> consumer;
+    private final ErrorCorrector corrector;
+    private final Consumer<RawMessage> rawConsumer;
+    private final BatchRing<byte[]> bytes;
+    private final BatchRing<int[]> powers;
+    private final BlockingQueue<RawMessage> messages;
+    private final AtomicLong messagesOverflows = new AtomicLong();
+    private volatile IOException failure;
+
+    /**
+     * Construit un pipeline de démodulation lisant les octets de la radio AirSpy depuis le flot
+     * donné, et transmettant au consommateur donné chacun des messages analysés.
+     *
+     * @param stream   le flot d'entrée
+     * @param consumer le consommateur des messages analysés, appelé sur le fil du dernier étage
+     * @throws NullPointerException si le flot ou le consommateur est nul
+     */
+    public DemodulationPipeline(InputStream stream, Consumer<Message> consumer) {
+        this(stream, consumer, null);
+    }
+
+    /**
+     * Construit un pipeline de démodulation lisant les octets de la radio AirSpy depuis le flot
+     * donné, corrigeant les messages dont le CRC est invalide au moyen du correcteur donné, et
+     * transmettant au consommateur donné chacun des messages analysés.
+     *
+     * @param stream    le flot d'entrée
+     * @param consumer  le consommateur des messages analysés, appelé sur le fil du dernier étage
+     * @param corrector le correcteur d'erreurs de l'étage de détection, ou null pour écarter ces
+     *                  messages
+     * @throws NullPointerException si le flot ou le consommateur est nul
+     */
+    public DemodulationPipeline(InputStream stream, Consumer<Message> consumer,
+                                ErrorCorrector corrector) {
+        this(stream, consumer, corrector, rawMessage -> {});
+    }
+
+    /**
+     * Construit un pipeline de démodulation lisant les octets de la radio AirSpy depuis le flot
+     * donné, corrigeant les messages dont le CRC est invalide au moyen du correcteur donné, et
+     * transmettant chacun des messages bruts détectés au consommateur de messages bruts donné,
+     * puis chacun des messages analysés au consommateur donné. Une exception
+     * UncheckedIOException levée par le consommateur de messages bruts, par exemple lors de
+     * l'écriture d'un journal, termine le pipeline, run levant alors sa cause.
+     *
+     * @param stream      le flot d'entrée
+     * @param consumer    le consommateur des messages analysés, appelé sur le fil du dernier étage
+     * @param corrector   le correcteur d'erreurs de l'étage de détection, ou null pour écarter
+     *                    ces messages
+     * @param rawConsumer le consommateur des messages bruts, appelé sur le fil du dernier étage
+     *                    avant l'analyse de chacun d'eux
+     * @throws NullPointerException si le flot ou l'un des consommateurs est nul
+     */
+    public DemodulationPipeline(InputStream stream, Consumer<Message> consumer,
+                                ErrorCorrector corrector, Consumer<RawMessage> rawConsumer) {
+        this.stream = Objects.requireNonNull(stream);
+        this.consumer = Objects.requireNonNull(consumer);
+        this.corrector = corrector;
+        this.rawConsumer = Objects.requireNonNull(rawConsumer);
+        this.bytes = new BatchRing<>(BYTES_BATCHES, () -> new byte[BYTES_BATCH_SIZE]);
+        this.powers = new BatchRing<>(POWER_BATCHES, () -> new int[POWER_BATCH_SIZE]);
+        this.messages = new ArrayBlockingQueue<>(MESSAGES_CAPACITY);
+    }
+
+    /**
+     * Démarre les trois premiers étages sur des fils démons, puis exécute l'étage d'analyse sur
+     * le fil courant jusqu'à ce que la fin du flot soit atteinte.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie dans l'un des étages
+     */
+    public void run() throws IOException {
+        startStage(this::readStage, "javions-read");
+        startStage(this::powerStage, "javions-power");
+        startStage(this::detectionStage, "javions-detection");
+        parseStage();
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Retourne le nombre de lots d'échantillons abandonnés par l'étage de lecture faute de place.
+     *
+     * @return le nombre de débordements de l'étage de lecture
+     */
+    public long readOverflows() {
+        return bytes.overflows();
+    }
+
+    /**
+     * Retourne le nombre de fois où l'étage de calcul de puissance a dû attendre l'étage de
+     * détection.
+     *
+     * @return le nombre de débordements de l'étage de calcul de puissance
+     */
+    public long powerOverflows() {
+        return powers.overflows();
+    }
+
+    /**
+     * Retourne le nombre de fois où l'étage de détection a dû attendre l'étage d'analyse.
+     *
+     * @return le nombre de débordements de l'étage de détection
+     */
+    public long detectionOverflows() {
+        return messagesOverflows.get();
+    }
+
+    /**
+     * Retourne le nombre de messages corrigés d'une erreur d'un bit par l'étage de détection, ou 0
+     * si le pipeline n'a pas de correcteur.
+     *
+     * @return le nombre de messages corrigés d'une erreur d'un bit
+     */
+    public long singleBitCorrections() {
+        return corrector == null ? 0 : corrector.singleBitCorrections();
+    }
+
+    /**
+     * Retourne le nombre de messages corrigés d'une erreur de deux bits par l'étage de détection,
+     * ou 0 si le pipeline n'a pas de correcteur.
+     *
+     * @return le nombre de messages corrigés d'une erreur de deux bits
+     */
+    public long doubleBitCorrections() {
+        return corrector == null ? 0 : corrector.doubleBitCorrections();
+    }
+
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    private void startStage(Stage stage, String name) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void readStage() throws InterruptedException {
+        byte[] discarded = new byte[BYTES_BATCH_SIZE];
+        long skipped = 0;
+        try {
+            while (true) {
+                BatchRing.Batch<byte[]> batch = bytes.tryAcquire();
+                if (batch == null) {
+                    int count = stream.readNBytes(discarded, 0, BYTES_BATCH_SIZE);
+                    skipped += count;
+                    if (count < BYTES_BATCH_SIZE) break;
+                    continue;
+                }
+                int count = stream.readNBytes(batch.data(), 0, BYTES_BATCH_SIZE);
+                bytes.publish(batch, count, skipped);
+                skipped = 0;
+                if (count < BYTES_BATCH_SIZE) return;
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        bytes.publish(bytes.acquire(), 0, skipped);
+    }
+
+    /**
+     * Calcule la puissance des lots d'octets un à un, un nouveau calculateur de puissance, sans
+     * historique, étant utilisé après chaque lacune.
+     */
+    private void powerStage() throws InterruptedException {
+        BatchSampleSource source = new BatchSampleSource();
+        PowerComputer computer = PowerComputer.of(source, POWER_BATCH_SIZE);
+        int count;
+        do {
+            BatchRing.Batch<byte[]> input = bytes.take();
+            long skipped = input.skipped() / BYTES_PER_POWER;
+            if (skipped > 0) computer = PowerComputer.of(source, POWER_BATCH_SIZE);
+            source.batch = input;
+
+            BatchRing.Batch<int[]> output = powers.acquire();
+            try {
+                count = computer.readBatch(output.data(), 0);
+            } catch (IOException e) {
+                failure = e;
+                count = 0;
+            }
+            bytes.release(input);
+            powers.publish(output, count, skipped);
+        } while (count == POWER_BATCH_SIZE);
+    }
+
+    /**
+     * Détecte les messages dans les segments successifs du signal séparés par des lacunes, une
+     * nouvelle fenêtre étant utilisée pour chacun d'eux.
+     */
+    private void detectionStage() throws InterruptedException {
+        try {
+            PowerBatchSource source = new PowerBatchSource();
+            do {
+                PowerWindow window = new PowerWindow(source, AdsbDemodulator.POWER_WINDOW_SIZE);
+                AdsbDemodulator demodulator = new AdsbDemodulator(window,
+                        source.segmentStart * AdsbDemodulator.NANOSEC_BY_POSITION, corrector);
+                RawMessage rawMessage;
+                while ((rawMessage = demodulator.nextMessage()) != null) {
+                    if (!messages.offer(rawMessage)) {
+                        messagesOverflows.incrementAndGet();
+                        messages.put(rawMessage);
+                    }
+                }
+            } while (source.nextSegment());
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            messages.put(END);
+        }
+    }
+
+    /**
+     * Représente la source d'échantillons du calculateur de puissance, qui décode le lot d'octets
+     * courant de l'étage de calcul de puissance
+     */
+    private static final class BatchSampleSource implements SampleSource {
+        private BatchRing.Batch<byte[]> batch;
+
+        @Override
+        public int readBatch(short[] samples) {
+            int count = batch.size() / Short.BYTES;
+            SamplesDecoder.decode(batch.data(), samples, count);
+            return count;
+        }
+    }
+
+    /**
+     * Représente la source d'échantillons de puissance de la fenêtre de détection, qui prend les
+     * lots de l'anneau de puissance et s'interrompt, comme à la fin du flot, devant le premier lot
+     * qui suit une lacune, celui-ci commençant le segment suivant
+     */
+    private final class PowerBatchSource implements PowerSource {
+        private BatchRing.Batch<int[]> pending;
+        private boolean ended;
+        private long segmentStart;
+        private long segmentSize;
+
+        @Override
+        public int readBatch(int[] samples, int from) throws IOException {
+            if (ended) return 0;
+            BatchRing.Batch<int[]> batch = pending;
+            pending = null;
+            if (batch == null) {
+                batch = take(powers);
+                if (batch.skipped() > 0 && segmentSize > 0) {
+                    pending = batch;
+                    return 0;
+                }
+                segmentStart += batch.skipped();
+            }
+            System.arraycopy(batch.data(), 0, samples, from, batch.size());
+            segmentSize += batch.size();
+            ended = batch.size() < POWER_BATCH_SIZE;
+            powers.release(batch);
+            return batch.size();
+        }
+
+        /**
+         * Passe au segment suivant, qui commence par le lot suivant la lacune, et retourne vrai,
+         * ou retourne faux si la fin du flot a été atteinte.
+         */
+        private boolean nextSegment() {
+            if (pending == null) return false;
+            segmentStart += segmentSize + pending.skipped();
+            segmentSize = 0;
+            return true;
+        }
+    }
+
+    private void parseStage() throws IOException {
+        try {
+            RawMessage rawMessage;
+            while ((rawMessage = messages.take()) != END) {
+                rawConsumer.accept(rawMessage);
+                Message message = MessageParser.parse(rawMessage);
+                if (message != null) consumer.accept(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> BatchRing.Batch<T> take(BatchRing<T> ring) throws IOException {
+        try {
+            return ring.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
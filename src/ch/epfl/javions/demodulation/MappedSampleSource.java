@@ -0,0 +1,90 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Représente une source d'échantillons lisant un fichier d'échantillons AirSpy projeté en mémoire,
+ * c.-à-d. décodant les échantillons directement depuis les pages du fichier, sans copie
+ * intermédiaire ni appel système par lot.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class MappedSampleSource implements SampleSource {
+
+    /**
+     * REGION_SIZE représente la taille (paire) en octets de chacune des régions projetées, une
+     * seule projection étant limitée à 2^31 - 1 octets
+     */
+    private static final int REGION_SIZE = 1 << 30;
+    private final MappedByteBuffer[] regions;
+    private int region;
+
+    /**
+     * Construit une source d'échantillons projetant en mémoire la totalité du fichier donné.
+     * Le fichier est fermé dès la fin de la construction, les projections restant valides.
+     *
+     * @param path le chemin du fichier d'échantillons
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public MappedSampleSource(Path path) throws IOException {
+        this(path, 0, Long.MAX_VALUE / Short.BYTES);
+    }
+
+    /**
+     * Construit une source d'échantillons projetant en mémoire la partie du fichier donné allant
+     * de l'échantillon d'index fromSample (inclus) à celui d'index toSample (exclu), cette plage
+     * étant tronquée à la fin du fichier.
+     *
+     * @param path       le chemin du fichier d'échantillons
+     * @param fromSample l'index du premier échantillon de la source
+     * @param toSample   l'index de l'échantillon suivant le dernier échantillon de la source
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si fromSample est négatif ou supérieur à toSample
+     */
+    public MappedSampleSource(Path path, long fromSample, long toSample) throws IOException {
+        Preconditions.checkArgument(0 <= fromSample && fromSample <= toSample);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long start = Math.min(fromSample * Short.BYTES, channel.size());
+            long size = Math.min(toSample * Short.BYTES, channel.size()) - start;
+            regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) / REGION_SIZE)];
+            for (int i = 0; i < regions.length; i++) {
+                long offset = (long) i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset,
+                        Math.min(REGION_SIZE, size - offset));
+                regions[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        region = 0;
+    }
+
+    /**
+     * Décode, directement depuis le fichier projeté, au plus autant d'échantillons que la taille du
+     * tableau passé en argument.
+     *
+     * @param batch le tableau dans lequel placer les échantillons
+     * @return le nombre d'échantillons placés dans le tableau
+     */
+    @Override
+    public int readBatch(short[] batch) {
+        int count = 0;
+        while (count < batch.length && region < regions.length) {
+            MappedByteBuffer buffer = regions[region];
+            int position = buffer.position();
+            int end = Math.min(buffer.limit() & ~1, position + (batch.length - count) * Short.BYTES);
+
+            for (int i = position; i < end; i += Short.BYTES) {
+                batch[count++] = (short) (buffer.getShort(i) - SamplesDecoder.OFFSET);
+            }
+            buffer.position(end);
+            if (buffer.limit() - end < Short.BYTES) region++;
+        }
+        return count;
+    }
+}
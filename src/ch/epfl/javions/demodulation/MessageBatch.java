@@ -0,0 +1,124 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.util.Objects;
+
+/**
+ * Représente un lot réutilisable de messages ADS-B bruts, rempli par AdsbDemodulator.nextMessages.
+ * Les messages sont stockés par colonnes, dans trois tableaux préalloués : leurs horodatages,
+ * leurs 8 premiers octets et leurs 6 derniers octets, de sorte que le remplissage du lot ne fait
+ * aucune allocation.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class MessageBatch {
+
+    private final long[] timeStampsNs;
+    private final long[] highs;
+    private final long[] lows;
+    private int size;
+
+    /**
+     * Construit un lot vide pouvant contenir le nombre de messages donné.
+     *
+     * @param capacity le nombre maximum de messages du lot
+     * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+     */
+    public MessageBatch(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        timeStampsNs = new long[capacity];
+        highs = new long[capacity];
+        lows = new long[capacity];
+    }
+
+    /**
+     * Retourne le nombre maximum de messages du lot.
+     *
+     * @return la capacité du lot
+     */
+    public int capacity() {
+        return timeStampsNs.length;
+    }
+
+    /**
+     * Retourne le nombre de messages du lot.
+     *
+     * @return le nombre de messages du lot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne l'horodatage du message d'index donné, exprimé en nanosecondes.
+     *
+     * @param index l'index du message
+     * @return l'horodatage du message
+     * @throws IndexOutOfBoundsException si l'index n'est pas compris entre 0 et size (exclu)
+     */
+    public long timeStampNs(int index) {
+        return timeStampsNs[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne les 8 premiers octets du message d'index donné, le premier étant l'octet de poids
+     * fort.
+     *
+     * @param index l'index du message
+     * @return les 64 premiers bits du message
+     * @throws IndexOutOfBoundsException si l'index n'est pas compris entre 0 et size (exclu)
+     */
+    public long high(int index) {
+        return highs[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne les 6 derniers octets du message d'index donné, dans les 48 bits de poids faible.
+     *
+     * @param index l'index du message
+     * @return les 48 derniers bits du message
+     * @throws IndexOutOfBoundsException si l'index n'est pas compris entre 0 et size (exclu)
+     */
+    public long low(int index) {
+        return lows[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Retourne le message ADS-B brut d'index donné, nouvellement créé.
+     *
+     * @param index l'index du message
+     * @return le message ADS-B brut d'index donné
+     * @throws IndexOutOfBoundsException si l'index n'est pas compris entre 0 et size (exclu)
+     */
+    public RawMessage rawMessage(int index) {
+        return new RawMessage(timeStampNs(index), highs[index], lows[index]);
+    }
+
+    /**
+     * Vide le lot.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Retourne vrai ssi le lot est plein.
+     */
+    boolean isFull() {
+        return size == timeStampsNs.length;
+    }
+
+    /**
+     * Ajoute au lot, qui ne doit pas être plein, le message dont l'horodatage et les bits sont
+     * donnés.
+     */
+    void add(long timeStampNs, long high, long low) {
+        timeStampsNs[size] = timeStampNs;
+        highs[size] = high;
+        lows[size] = low;
+        size++;
+    }
+}
@@ -0,0 +1,240 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.ErrorCorrector;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Démodule en parallèle un fichier d'échantillons enregistré, en le découpant en tranches
+ * démodulées chacune par un AdsbDemodulator sur un ForkJoinPool.
+ * <p>
+ * Chaque tranche possède les positions de fenêtre comprises entre son début (inclus) et le début
+ * de la tranche suivante (exclu), et lit en plus les POWER_WINDOW_SIZE - 1 échantillons de
+ * puissance suivants afin que sa dernière fenêtre soit pleine. Un message n'est donc trouvé que
+ * par la tranche possédant sa position. Chaque tranche lit aussi la position précédant son début,
+ * dont la somme des pics sert au test de maximum local de sa première position, comme lors d'une
+ * démodulation séquentielle.
+ * <p>
+ * Lorsque le dernier message d'une tranche déborde sur la suivante, la démodulation séquentielle
+ * reprendrait juste après lui, alors que la suivante a commencé à son propre début. Celle-ci est
+ * donc redémodulée à partir de la fin de ce message, jusqu'à ce qu'elle retrouve l'un des
+ * messages de la démodulation initiale, au-delà duquel les deux parcours sont identiques. Le
+ * résultat est ainsi exactement celui de la démodulation séquentielle.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public final class ParallelDemodulator {
+
+    /**
+     * CHUNK_SIZE représente le nombre de positions de fenêtre possédées par chaque tranche,
+     * soit environ 0,4 seconde de signal
+     */
+    private static final int CHUNK_SIZE = 1 << 22;
+
+    /**
+     * SAMPLES_BY_POSITION représente le nombre d'échantillons correspondant à un échantillon de
+     * puissance
+     */
+    private static final int SAMPLES_BY_POSITION = 2;
+
+    /**
+     * HISTORY représente le nombre d'échantillons précédant une tranche nécessaires au calcul de
+     * ses premiers échantillons de puissance
+     */
+    private static final int HISTORY = PowerComputer.FILTER_SIZE - 2;
+
+    /**
+     * Constructeur de ParallelDemodulator qui n'est pas instantiable
+     */
+    private ParallelDemodulator() {}
+
+    /**
+     * Retourne, dans l'ordre de leurs horodatages, tous les messages du fichier d'échantillons
+     * donné, démodulé par tranches sur le pool commun.
+     *
+     * @param path le chemin du fichier d'échantillons
+     * @return les messages du fichier, triés par horodatage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static List<RawMessage> demodulate(Path path) throws IOException {
+        return demodulate(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Retourne, dans l'ordre de leurs horodatages, tous les messages du fichier d'échantillons
+     * donné, démodulé par tranches sur le pool donné.
+     *
+     * @param path le chemin du fichier d'échantillons
+     * @param pool le pool sur lequel démoduler les tranches
+     * @return les messages du fichier, triés par horodatage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static List<RawMessage> demodulate(Path path, ForkJoinPool pool) throws IOException {
+        return demodulate(path, pool, null);
+    }
+
+    /**
+     * Retourne, dans l'ordre de leurs horodatages, tous les messages du fichier d'échantillons
+     * donné, démodulé par tranches sur le pool commun, les messages dont le CRC est invalide
+     * étant corrigés au moyen du correcteur donné.
+     *
+     * @param path      le chemin du fichier d'échantillons
+     * @param corrector le correcteur d'erreurs, partagé par les tranches, ou null pour écarter
+     *                  ces messages
+     * @return les messages du fichier, triés par horodatage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static List<RawMessage> demodulate(Path path, ErrorCorrector corrector)
+            throws IOException {
+        return demodulate(path, ForkJoinPool.commonPool(), corrector);
+    }
+
+    /**
+     * Retourne, dans l'ordre de leurs horodatages, tous les messages du fichier d'échantillons
+     * donné, démodulé par tranches sur le pool donné, les messages dont le CRC est invalide étant
+     * corrigés au moyen du correcteur donné. Les compteurs du correcteur incluent les messages
+     * corrigés dans la partie redémodulée d'une tranche, qui peuvent l'être deux fois.
+     *
+     * @param path      le chemin du fichier d'échantillons
+     * @param pool      le pool sur lequel démoduler les tranches
+     * @param corrector le correcteur d'erreurs, partagé par les tranches, ou null pour écarter
+     *                  ces messages
+     * @return les messages du fichier, triés par horodatage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static List<RawMessage> demodulate(Path path, ForkJoinPool pool,
+                                              ErrorCorrector corrector) throws IOException {
+        return demodulate(path, pool, CHUNK_SIZE, corrector);
+    }
+
+    static List<RawMessage> demodulate(Path path, ForkJoinPool pool, int chunkSize)
+            throws IOException {
+        return demodulate(path, pool, chunkSize, null);
+    }
+
+    static List<RawMessage> demodulate(Path path, ForkJoinPool pool, int chunkSize,
+                                       ErrorCorrector corrector) throws IOException {
+        Preconditions.checkArgument(chunkSize > 0);
+
+        long positions = Files.size(path) / (SAMPLES_BY_POSITION * Short.BYTES);
+        List<Callable<List<RawMessage>>> chunks = new ArrayList<>();
+        for (long from = 0; from < positions; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize, positions);
+            chunks.add(() -> demodulateChunk(path, chunkFrom, chunkTo, corrector));
+        }
+
+        List<RawMessage> messages = new ArrayList<>();
+        long nextPosition = 0;
+        long chunkFrom = 0;
+        for (Future<List<RawMessage>> chunk : pool.invokeAll(chunks)) {
+            long chunkTo = Math.min(chunkFrom + chunkSize, positions);
+            List<RawMessage> chunkMessages = join(chunk);
+            if (nextPosition > chunkFrom)
+                chunkMessages = resumeChunk(path, nextPosition, chunkTo, chunkMessages, corrector);
+            for (RawMessage message : chunkMessages) {
+                messages.add(message);
+                nextPosition = message.timeStampNs() / AdsbDemodulator.NANOSEC_BY_POSITION
+                        + AdsbDemodulator.POWER_WINDOW_SIZE;
+            }
+            chunkFrom = chunkTo;
+        }
+        return messages;
+    }
+
+    /**
+     * Démodule la tranche possédant les positions de fenêtre comprises entre from (inclus) et
+     * to (exclu), et retourne ses messages avec leurs horodatages absolus.
+     */
+    private static List<RawMessage> demodulateChunk(Path path, long from, long to,
+                                                    ErrorCorrector corrector)
+            throws IOException {
+        AdsbDemodulator demodulator = demodulator(path, from, to, from > 0, corrector);
+        List<RawMessage> messages = new ArrayList<>();
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null) messages.add(message);
+        return messages;
+    }
+
+    /**
+     * Redémodule la tranche se terminant à la position to (exclue) à partir de la position from,
+     * qui suit la fin d'un message de la tranche précédente, jusqu'à retrouver l'un des messages
+     * de sa démodulation initiale, donnés, et retourne les messages qu'aurait trouvés la
+     * démodulation séquentielle.
+     */
+    private static List<RawMessage> resumeChunk(Path path, long from, long to,
+                                                List<RawMessage> chunkMessages,
+                                                ErrorCorrector corrector)
+            throws IOException {
+        List<RawMessage> messages = new ArrayList<>();
+        if (from >= to) return messages;
+
+        AdsbDemodulator demodulator = demodulator(path, from, to, false, corrector);
+        int next = 0;
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null) {
+            while (next < chunkMessages.size()
+                    && chunkMessages.get(next).timeStampNs() < message.timeStampNs()) {
+                next++;
+            }
+            if (next < chunkMessages.size()
+                    && chunkMessages.get(next).timeStampNs() == message.timeStampNs()) {
+                messages.addAll(chunkMessages.subList(next, chunkMessages.size()));
+                break;
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Retourne un démodulateur des positions de fenêtre comprises entre from (inclus) et to
+     * (exclu), produisant des horodatages absolus, et dont la recherche tient compte de la somme
+     * des pics de la position précédant from si seeded est vrai, ou la suppose nulle sinon, comme
+     * au début du fichier ou après un message.
+     */
+    private static AdsbDemodulator demodulator(Path path, long from, long to, boolean seeded,
+                                               ErrorCorrector corrector)
+            throws IOException {
+        long start = seeded ? from - 1 : from;
+        int history = (int) Math.min(HISTORY, start * SAMPLES_BY_POSITION);
+        long fromSample = start * SAMPLES_BY_POSITION - history;
+        long toSample = (to + AdsbDemodulator.POWER_WINDOW_SIZE - 1) * SAMPLES_BY_POSITION;
+
+        PowerWindow window = new PowerWindow(new MappedSampleSource(path, fromSample, toSample),
+                AdsbDemodulator.POWER_WINDOW_SIZE);
+        window.advanceBy(history / SAMPLES_BY_POSITION);
+        long offsetNs = (start - history / SAMPLES_BY_POSITION)
+                * AdsbDemodulator.NANOSEC_BY_POSITION;
+
+        AdsbDemodulator demodulator = new AdsbDemodulator(window, offsetNs, corrector);
+        if (seeded) demodulator.skipPosition();
+        return demodulator;
+    }
+
+    private static List<RawMessage> join(Future<List<RawMessage>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException)
+                throw uncheckedIOException.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ch.epfl.javions.demodulation;
 import ch.epfl.javions.Preconditions;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
 
 
 /**
@@ -14,9 +15,14 @@ import java.io.InputStream;
  */
 public final class PowerComputer {
     public static final int FILTER_SIZE = 8;
+    /**
+     * HISTORY représente le nombre d'échantillons du lot précédent nécessaires au calcul des
+     * premiers échantillons de puissance d'un lot
+     */
+    private static final int HISTORY = FILTER_SIZE - 2;
     private final short[] oneBatch;
-    private final int[] window;
-    private final SamplesDecoder samplesTable;
+    private final short[] history;
+    private final SampleSource samplesTable;
     private final int batchSize;
 
     /**
@@ -34,7 +40,30 @@ public final class PowerComputer {
         this.batchSize = batchSize;
         this.samplesTable = new SamplesDecoder(stream, Short.BYTES * batchSize);
         this.oneBatch = new short[Short.BYTES * batchSize];
-        this.window = new int[Long.BYTES];
+        this.history = new short[HISTORY];
+    }
+
+    private PowerComputer(SampleSource samples, int batchSize) {
+        Preconditions.checkArgument((batchSize > 0) && (batchSize % FILTER_SIZE == 0));
+        this.batchSize = batchSize;
+        this.samplesTable = Objects.requireNonNull(samples);
+        this.oneBatch = new short[Short.BYTES * batchSize];
+        this.history = new short[HISTORY];
+    }
+
+    /**
+     * Retourne un calculateur de puissance obtenant ses échantillons de la source donnée, et
+     * produisant des échantillons de puissance par lots de taille donnée
+     *
+     * @param samples   la source d'échantillons
+     * @param batchSize la taille des lots
+     * @return un calculateur de puissance lisant la source donnée
+     * @throws NullPointerException     si la source est nulle
+     * @throws IllegalArgumentException si la taille des lots donnée n'est pas un multiple de 8
+     * strictement positif
+     */
+    public static PowerComputer of(SampleSource samples, int batchSize) {
+        return new PowerComputer(samples, batchSize);
     }
 
     /**
@@ -48,18 +77,52 @@ public final class PowerComputer {
      */
     public int readBatch(int[] batch) throws IOException {
         Preconditions.checkArgument(batch.length == batchSize);
+        return readBatch(batch, 0);
+    }
+
+    /**
+     * Calcule un lot d'échantillons de puissance et les place dans le tableau donné à partir de
+     * l'index donné, qui doit laisser la place pour un lot complet
+     *
+     * @param powers le tableau dans lequel placer les échantillons de puissance
+     * @param from   l'index du premier échantillon de puissance du lot dans le tableau
+     * @return le nombre d'échantillons de puissance placés dans le tableau
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    int readBatch(int[] powers, int from) throws IOException {
+        int count = samplesTable.readBatch(oneBatch) / 2;
+        int head = Math.min(count, HISTORY / 2);
+        for (int i = 0; i < head; i++) {
+            int j = 2 * i;
+            powers[from + i] = power(sample(j) - sample(j - 2) + sample(j - 4) - sample(j - 6),
+                    sample(j + 1) - sample(j - 1) + sample(j - 3) - sample(j - 5));
+        }
+
+        // Boucle principale, sans tampon circulaire ni modulo, que le JIT peut vectoriser
+        short[] s = oneBatch;
+        for (int i = head; i < count; i++) {
+            int j = 2 * i;
+            powers[from + i] = power(s[j] - s[j - 2] + s[j - 4] - s[j - 6],
+                    s[j + 1] - s[j - 1] + s[j - 3] - s[j - 5]);
+        }
 
-        int count = samplesTable.readBatch(oneBatch);
-        for (int i = 0; i < count / 2; i++) {
-            window[(2 * i) % FILTER_SIZE] = oneBatch[2 * i];
-            window[(2 * i + 1) % FILTER_SIZE] = oneBatch[2 * i + 1];
-            batch[i] = power(window);
+        for (int k = 0; k < HISTORY; k++) {
+            history[k] = sample(2 * count - HISTORY + k);
         }
-        return count / 2;
+        return count;
     }
 
-    private int power(int[] window) {
-        return (int) (Math.pow(window[0] - window[2] + window[4] - window[6], 2) +
-                Math.pow(window[1] - window[3] + window[5] - window[7], 2));
+    private short sample(int index) {
+        return index >= 0 ? oneBatch[index] : history[index + HISTORY];
+    }
+
+    /**
+     * Calcule la puissance à partir des sommes alternées des échantillons pairs et impairs, en
+     * arithmétique entière. Le résultat est identique au calcul en virgule flottante, y compris
+     * sa saturation à Integer.MAX_VALUE pour des échantillons hors de la plage de 12 bits.
+     */
+    private static int power(int inPhase, int quadrature) {
+        long power = (long) inPhase * inPhase + (long) quadrature * quadrature;
+        return (int) Math.min(power, Integer.MAX_VALUE);
     }
 }
@@ -0,0 +1,25 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.IOException;
+
+/**
+ * Représente une source de lots d'échantillons de puissance, telle qu'un calculateur de puissance
+ * ou l'étage de calcul de puissance d'un pipeline de démodulation.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+interface PowerSource {
+
+    /**
+     * Place le prochain lot d'échantillons de puissance dans le tableau donné à partir de l'index
+     * donné, qui doit laisser la place pour un lot complet.
+     *
+     * @param powers le tableau dans lequel placer les échantillons de puissance
+     * @param from   l'index du premier échantillon de puissance du lot dans le tableau
+     * @return le nombre d'échantillons de puissance placés dans le tableau, qui n'est inférieur
+     * à la taille d'un lot que si la fin de la source a été atteinte
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    int readBatch(int[] powers, int from) throws IOException;
+}
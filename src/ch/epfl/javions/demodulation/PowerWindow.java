@@ -13,15 +13,23 @@ import java.util.Objects;
  * @author Ryad Aouak (315258)
  */
 public final class PowerWindow {
-    private final static int BATCH_SIZE = 1 << 16;
+    final static int BATCH_SIZE = 1 << 16;
+    /**
+     * RING_SIZE représente la taille du tampon circulaire, une puissance de deux contenant deux
+     * lots, ce qui suffit puisque la fenêtre n'est jamais plus grande qu'un lot. Le tampon est
+     * suivi d'une copie de ses windowSize premiers échantillons, de sorte que la fenêtre y soit
+     * toujours contiguë
+     */
+    private final static int RING_SIZE = 2 * BATCH_SIZE;
+    private final static int RING_MASK = RING_SIZE - 1;
     private final int windowSize;
-    private final PowerComputer powers;
+    private final PowerSource powers;
+    private final int[] ring;
     private long position;
-    private int index;
-    private int[] batch1;
-    private int[] batch2;
-    private int counter;
-    
+    private long end;
+    private long batchesEnd;
+    private boolean endOfStream;
+
     /**
      * Construit une fenêtre de puissance et retourne une fenêtre de taille donnée sur la séquence
      * d'échantillons de puissance calculés à partir des octets fournis par le flot d'entrée donné.
@@ -33,15 +41,40 @@ public final class PowerWindow {
      *                                  (exclu) et 2^16 (inclus).
      */
     public PowerWindow(InputStream stream, int windowSize) throws IOException {
+        this((PowerSource) new PowerComputer(stream, BATCH_SIZE)::readBatch, windowSize);
+    }
+
+    /**
+     * Construit une fenêtre de puissance de taille donnée sur la séquence d'échantillons de
+     * puissance calculés à partir des échantillons fournis par la source donnée.
+     *
+     * @param samples    la source d'échantillons.
+     * @param windowSize la taille de la fenêtre.
+     * @throws IOException              en cas d'erreur d'entrée/sortie.
+     * @throws IllegalArgumentException si la taille de la fenêtre donnée n'est pas comprise entre 0
+     *                                  (exclu) et 2^16 (inclus).
+     */
+    public PowerWindow(SampleSource samples, int windowSize) throws IOException {
+        this((PowerSource) PowerComputer.of(samples, BATCH_SIZE)::readBatch, windowSize);
+    }
+
+    /**
+     * Construit une fenêtre de puissance de taille donnée sur la séquence d'échantillons de
+     * puissance fournis, par lots de 2^16, par la source donnée.
+     *
+     * @param powers     la source d'échantillons de puissance.
+     * @param windowSize la taille de la fenêtre.
+     * @throws IOException              en cas d'erreur d'entrée/sortie.
+     * @throws IllegalArgumentException si la taille de la fenêtre donnée n'est pas comprise entre 0
+     *                                  (exclu) et 2^16 (inclus).
+     */
+    PowerWindow(PowerSource powers, int windowSize) throws IOException {
         Preconditions.checkArgument(windowSize > 0 && windowSize <= BATCH_SIZE);
         this.windowSize = windowSize;
         this.position = 0;
-        this.index = 0;
-        this.powers = new PowerComputer(stream, BATCH_SIZE);
-
-        batch1 = new int[BATCH_SIZE];
-        batch2 = new int[BATCH_SIZE];
-        counter = powers.readBatch(batch1);
+        this.powers = powers;
+        this.ring = new int[RING_SIZE + windowSize];
+        fill();
     }
 
     /**
@@ -69,7 +102,7 @@ public final class PowerWindow {
      * @return vrai si la fenêtre est pleine.
      */
     public boolean isFull() {
-        return counter >= windowSize;
+        return end - position >= windowSize;
     }
 
     /**
@@ -81,12 +114,37 @@ public final class PowerWindow {
      *                                   la taille de la fenêtre (exclu).
      */
     public int get(int i) {
-
         Objects.checkIndex(i, windowSize);
-        int index1 = index + i;
+        return ring[arrayIndex() + i];
+    }
 
-        if (index1 < BATCH_SIZE) return batch1[index1];
-        else return batch2[index1 - BATCH_SIZE];
+    /**
+     * Retourne le tableau contenant les échantillons de la fenêtre, à partir de l'index donné par
+     * arrayIndex, ainsi que ceux des fenêtres suivantes dénombrées par fullPositions.
+     *
+     * @return le tableau contenant les échantillons de la fenêtre.
+     */
+    int[] array() {
+        return ring;
+    }
+
+    /**
+     * Retourne l'index, dans le tableau retourné par array, de l'échantillon d'index 0 de la fenêtre.
+     *
+     * @return l'index du premier échantillon de la fenêtre dans le tableau.
+     */
+    int arrayIndex() {
+        return (int) position & RING_MASK;
+    }
+
+    /**
+     * Retourne le nombre de positions, à partir de la position actuelle, pour lesquelles la
+     * fenêtre est pleine et contiguë dans le tableau retourné par array sans avoir à l'avancer.
+     *
+     * @return le nombre de positions pouvant être examinées directement dans le tableau.
+     */
+    int fullPositions() {
+        return (int) Math.max(0, Math.min(end - windowSize - position + 1, RING_SIZE - arrayIndex()));
     }
 
     /**
@@ -96,22 +154,13 @@ public final class PowerWindow {
      */
     public void advance() throws IOException {
         position++;
-        index++;
-        counter--;
-
-        if (index + windowSize - 1 == BATCH_SIZE) counter += powers.readBatch(batch2);
-        else if (index >= BATCH_SIZE) {
-            int[] temp = batch2;
-            batch2 = batch1;
-            batch1 = temp;
-            index = 0;
-        }
+        if (position + windowSize > batchesEnd) fill();
     }
 
     /**
      * Avance la fenêtre de la valeur d'offset donné, comme si la méthode advance avait été appelée
      * le nombre de fois donné, ou lève IllegalArgumentException si ce nombre n'est pas positif ou
-     * nul.
+     * nul. Seuls les lots atteints par la fenêtre sont calculés, quelle que soit la valeur d'offset.
      *
      * @param offset le nombre d'échantillons à avancer.
      * @throws IOException              en cas d'erreur d'entrée/sortie.
@@ -120,8 +169,24 @@ public final class PowerWindow {
     public void advanceBy(int offset) throws IOException {
         Preconditions.checkArgument(offset >= 0);
 
-        for (int i = 0; i < offset; i++) {
-            advance();
+        position += offset;
+        if (position + windowSize > batchesEnd) fill();
+    }
+
+    /**
+     * Lit les lots nécessaires pour que la fenêtre soit pleine, chacun étant placé dans la moitié
+     * du tampon circulaire qui ne contient plus d'échantillons de la fenêtre. Les lots entièrement
+     * situés avant la fenêtre, lors d'un saut de plusieurs lots, doivent tout de même être
+     * calculés pour conserver l'état du calculateur de puissance.
+     */
+    private void fill() throws IOException {
+        while (!endOfStream && position + windowSize > batchesEnd) {
+            int from = (int) batchesEnd & RING_MASK;
+            int count = powers.readBatch(ring, from);
+            if (from == 0) System.arraycopy(ring, 0, ring, RING_SIZE, windowSize);
+            end += count;
+            batchesEnd += BATCH_SIZE;
+            endOfStream = count < BATCH_SIZE;
         }
     }
-}
\ No newline at end of file
+}
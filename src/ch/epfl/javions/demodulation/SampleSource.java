@@ -0,0 +1,24 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.IOException;
+
+/**
+ * Représente une source d'échantillons de 12 bits signés provenant de la radio AirSpy, qu'ils
+ * soient lus depuis un flot d'entrée ou directement depuis un fichier projeté en mémoire.
+ *
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+public interface SampleSource {
+
+    /**
+     * Lit au plus autant d'échantillons que la taille du tableau passé en argument et les place,
+     * recentrés autour de 0, au début de celui-ci.
+     *
+     * @param batch le tableau dans lequel placer les échantillons
+     * @return le nombre d'échantillons placés dans le tableau, qui n'est inférieur à sa taille
+     * que si la fin de la source a été atteinte
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    int readBatch(short[] batch) throws IOException;
+}
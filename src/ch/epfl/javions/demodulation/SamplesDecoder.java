@@ -8,18 +8,19 @@ import java.util.Objects;
 
 /**
  * Représente un "décodeur d'échantillons", c.-à-d. un objet capable de transformer les octets
- * provenant de la AirSpy en des échantillons de 12 bits signés.
+ * provenant de la AirSpy en des échantillons de 12 bits signés. Il constitue la source
+ * d'échantillons lus depuis un flot d'entrée.
  *
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
  */
-public final class SamplesDecoder {
+public final class SamplesDecoder implements SampleSource {
 
     /**
      * OFFSET représente le décalage à appliquer aux échantillons et permet de recentrer les
      * échantillons autour de 0 par une soustraction de 2048
      */
-    private final static int OFFSET = 1 << 11;
+    final static int OFFSET = 1 << 11;
 
     /**
      * batchSize représente la taille d'un lot
@@ -63,15 +64,28 @@ public final class SamplesDecoder {
      * @throws IllegalArgumentException si la taille du tableau passé en argument n'est pas égale à
      * la taille d'un lot
      */
+    @Override
     public int readBatch(short[] batch) throws IOException {
         Preconditions.checkArgument(batch.length == batchSize);
 
         int count = flow.readNBytes(intermediateTable, 0, intermediateTable.length);
-        for (int i = 0; i < count / Short.BYTES; i++) {
-            int lsb = Byte.toUnsignedInt(intermediateTable[Short.BYTES * i]);
-            int msb = Byte.toUnsignedInt(intermediateTable[Short.BYTES * i + 1]);
-            batch[i] = (short) (((msb << Byte.SIZE) | lsb) - OFFSET);
-        }
+        decode(intermediateTable, batch, count / Short.BYTES);
         return count / Short.BYTES;
     }
+
+    /**
+     * Convertit les octets donnés, provenant de la AirSpy, en le nombre donné d'échantillons
+     * signés placés au début du tableau d'échantillons donné.
+     *
+     * @param bytes   les octets à convertir
+     * @param samples le tableau dans lequel placer les échantillons
+     * @param count   le nombre d'échantillons à convertir
+     */
+    static void decode(byte[] bytes, short[] samples, int count) {
+        for (int i = 0; i < count; i++) {
+            int lsb = Byte.toUnsignedInt(bytes[Short.BYTES * i]);
+            int msb = Byte.toUnsignedInt(bytes[Short.BYTES * i + 1]);
+            samples[i] = (short) (((msb << Byte.SIZE) | lsb) - OFFSET);
+        }
+    }
 }
\ No newline at end of file
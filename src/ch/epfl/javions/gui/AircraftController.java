@@ -12,7 +12,6 @@ import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableSet;
 import javafx.collections.SetChangeListener;
@@ -164,26 +163,22 @@ public final class AircraftController {
      */
     private SVGPath iconGroup(ObservableAircraftState aircraftState) {
 
-        AircraftData aircraftData = aircraftState.getAircraftData();
-
-        AircraftTypeDesignator aircraftTypeDesignator = (aircraftData != null)
-                ? aircraftData.typeDesignator()
-                : AIRCRAFT_TYPE_DESIGNATOR;
-
-        AircraftDescription aircraftDescription = (aircraftData != null)
-                ? aircraftData.description()
-                : AIRCRAFT_DESCRIPTION;
-
-        WakeTurbulenceCategory wakeTurbulenceCategory = (aircraftData != null)
-                ? aircraftData.wakeTurbulenceCategory()
-                : WakeTurbulenceCategory.UNKNOWN;
-
-        ObservableValue<AircraftIcon> icon = aircraftState.categoryProperty().map(c ->
-                AircraftIcon.iconFor(
-                        aircraftTypeDesignator,
-                        aircraftDescription,
-                        c.intValue(),
-                        wakeTurbulenceCategory));
+        ObservableValue<AircraftIcon> icon = Bindings.createObjectBinding(() -> {
+                    AircraftData aircraftData = aircraftState.getAircraftData();
+                    return AircraftIcon.iconFor(
+                            (aircraftData != null)
+                                    ? aircraftData.typeDesignator()
+                                    : AIRCRAFT_TYPE_DESIGNATOR,
+                            (aircraftData != null)
+                                    ? aircraftData.description()
+                                    : AIRCRAFT_DESCRIPTION,
+                            aircraftState.getCategory(),
+                            (aircraftData != null)
+                                    ? aircraftData.wakeTurbulenceCategory()
+                                    : WakeTurbulenceCategory.UNKNOWN);
+                },
+                aircraftState.categoryProperty(),
+                aircraftState.aircraftDataProperty());
 
         SVGPath aircraftIcon = new SVGPath();
         aircraftIcon.getStyleClass().add("aircraft");
@@ -335,13 +330,20 @@ public final class AircraftController {
      * adresse OACI
      */
     private ObservableValue<String> getAircraftIdentifier(ObservableAircraftState aircraftState) {
-        AircraftData aircraftData = aircraftState.getAircraftData();
-
-        return (aircraftData != null)
-                ? new SimpleStringProperty(aircraftData.registration().string())
-                : Bindings.when(aircraftState.callSignProperty().isNotNull())
-                .then(Bindings.convert(aircraftState.callSignProperty().map(CallSign::string)))
-                .otherwise(aircraftState.getIcaoAddress().string());
+        ObservableValue<String> callSignOrAddress =
+                Bindings.when(aircraftState.callSignProperty().isNotNull())
+                        .then(Bindings.convert(aircraftState.callSignProperty()
+                                .map(CallSign::string)))
+                        .otherwise(aircraftState.getIcaoAddress().string());
+
+        return Bindings.createStringBinding(() -> {
+                    AircraftData aircraftData = aircraftState.getAircraftData();
+                    return (aircraftData != null)
+                            ? aircraftData.registration().string()
+                            : callSignOrAddress.getValue();
+                },
+                aircraftState.aircraftDataProperty(),
+                callSignOrAddress);
     }
 
     /**
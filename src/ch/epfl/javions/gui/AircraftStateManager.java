@@ -1,7 +1,10 @@
 package ch.epfl.javions.gui;
 
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
 import ch.epfl.javions.adsb.AircraftStateAccumulator;
 import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.AircraftData;
 import ch.epfl.javions.aircraft.AircraftDatabase;
 import ch.epfl.javions.aircraft.IcaoAddress;
 import javafx.collections.FXCollections;
@@ -9,33 +12,172 @@ import javafx.collections.ObservableSet;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * La classe AircraftStateManager a pour but de garder à jour les états d'un ensemble d'aéronefs en
  * fonction des messages reçus d'eux
+ * <p>
+ * Les aéronefs sont chaînés dans deux files d'expiration ordonnées selon la réception de leur
+ * dernier message : celle des aéronefs dont l'état est visible et celle de tous les aéronefs
+ * connus. La purge retire ainsi, sans parcourir les autres, les états visibles expirés de
+ * l'ensemble observable, puis oublie complètement les aéronefs dont aucun message n'a été reçu
+ * depuis plus longtemps encore, de sorte que la mémoire utilisée ne croît pas indéfiniment.
+ * <p>
+ * Les caractéristiques fixes d'un nouvel aéronef sont recherchées dans la base de données sur un
+ * fil de l'exécuteur de recherche, son état étant créé immédiatement, sans elles. Le résultat de
+ * la recherche, ou son échec, quelle qu'en soit la cause, est appliqué à l'état, sur le fil
+ * appelant, à la fin de l'appel à updateWithMessage qui suit sa réception. Une seule recherche est
+ * en cours à la fois pour une même adresse.
  *
  * @author Ethan Boren (361582)
  * @author Ryad Aouak (315258)
  */
 public final class AircraftStateManager {
-    private static final long MAX_TEMPS = Duration.ofMinutes(1).toNanos();
-    private final Map<IcaoAddress, AircraftStateAccumulator<ObservableAircraftState>> map;
+    private static final Duration STATE_LIFETIME = Duration.ofMinutes(1);
+    private static final Duration AIRCRAFT_LIFETIME = Duration.ofMinutes(10);
+    private static final Executor LOOKUP_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Représente un aéronef connu, c.-à-d. l'accumulateur de son état et ses nœuds dans les files
+     * d'expiration des aéronefs connus et des états visibles
+     */
+    private static final class Aircraft {
+        private final AircraftStateAccumulator<ObservableAircraftState> accumulator;
+        private final ExpiryQueue.Node<Aircraft> node;
+        private final ExpiryQueue.Node<Aircraft> visibleNode;
+
+        private Aircraft(AircraftStateAccumulator<ObservableAircraftState> accumulator) {
+            this.accumulator = accumulator;
+            this.node = new ExpiryQueue.Node<>(this);
+            this.visibleNode = new ExpiryQueue.Node<>(this);
+        }
+
+        private ObservableAircraftState state() {
+            return accumulator.stateSetter();
+        }
+    }
+
+    /**
+     * Représente le résultat de la recherche des caractéristiques fixes d'un aéronef, qui sont
+     * nulles si l'aéronef n'est pas dans la base de données ou si la recherche a échoué
+     */
+    private record Lookup(IcaoAddress icaoAddress, AircraftData aircraftData,
+                          Exception failure) {
+    }
+
+    private final IcaoAddressTable<Aircraft> map;
+    private final ExpiryQueue<Aircraft> aircraftQueue;
+    private final ExpiryQueue<Aircraft> visibleQueue;
     private final ObservableSet<ObservableAircraftState> observableAircraftStates;
     private final ObservableSet<ObservableAircraftState> unmodifiableStates;
     private final AircraftDatabase aircraftDatabase;
+    private final Executor lookupExecutor;
+    private final GeoPos receiverPosition;
+    private final Set<IcaoAddress> pendingLookups;
+    private final Queue<Lookup> completedLookups;
+    private final long stateLifetimeNs;
+    private final long aircraftLifetimeNs;
     private long lastMessageTimeStampNs;
+    private long expiredStates;
+    private long expiredAircraft;
 
     /**
      * Constructeur de AircraftStateManager qui prend comme argument la base de données contenant
-     * les caractéristiques fixes des aéronefs
+     * les caractéristiques fixes des aéronefs. Les états sont retirés de l'ensemble observable
+     * une minute après le dernier message reçu de l'aéronef, et les aéronefs oubliés dix minutes
+     * après celui-ci. Les recherches dans la base de données sont faites sur des fils virtuels.
      *
      * @param aircraftDatabase les caractéristiques fixes des aéronefs
      */
     public AircraftStateManager(AircraftDatabase aircraftDatabase) {
+        this(aircraftDatabase, STATE_LIFETIME, AIRCRAFT_LIFETIME);
+    }
+
+    /**
+     * Constructeur de AircraftStateManager qui prend comme arguments la base de données contenant
+     * les caractéristiques fixes des aéronefs et la position du récepteur, relativement à
+     * laquelle la première position de chaque aéronef peut être décodée sans attendre une paire
+     * de messages. Les durées et l'exécuteur sont ceux du constructeur précédent.
+     *
+     * @param aircraftDatabase les caractéristiques fixes des aéronefs
+     * @param receiverPosition la position du récepteur, ou null si elle est inconnue
+     */
+    public AircraftStateManager(AircraftDatabase aircraftDatabase, GeoPos receiverPosition) {
+        this(aircraftDatabase, STATE_LIFETIME, AIRCRAFT_LIFETIME, LOOKUP_EXECUTOR,
+                receiverPosition);
+    }
+
+    /**
+     * Constructeur de AircraftStateManager qui prend comme arguments la base de données contenant
+     * les caractéristiques fixes des aéronefs, la durée après laquelle l'état d'un aéronef dont
+     * aucun message n'a été reçu est retiré de l'ensemble observable, et celle après laquelle
+     * l'aéronef est complètement oublié
+     *
+     * @param aircraftDatabase les caractéristiques fixes des aéronefs
+     * @param stateLifetime    la durée de visibilité d'un état après le dernier message reçu
+     * @param aircraftLifetime la durée de conservation d'un aéronef après le dernier message reçu
+     * @throws IllegalArgumentException si la durée de visibilité est négative, ou si la durée de
+     *                                  conservation lui est inférieure
+     */
+    public AircraftStateManager(AircraftDatabase aircraftDatabase, Duration stateLifetime,
+                                Duration aircraftLifetime) {
+        this(aircraftDatabase, stateLifetime, aircraftLifetime, LOOKUP_EXECUTOR);
+    }
+
+    /**
+     * Constructeur de AircraftStateManager qui prend comme arguments, en plus de ceux du
+     * constructeur précédent, l'exécuteur sur lequel rechercher les caractéristiques fixes des
+     * nouveaux aéronefs dans la base de données
+     *
+     * @param aircraftDatabase les caractéristiques fixes des aéronefs
+     * @param stateLifetime    la durée de visibilité d'un état après le dernier message reçu
+     * @param aircraftLifetime la durée de conservation d'un aéronef après le dernier message reçu
+     * @param lookupExecutor   l'exécuteur des recherches dans la base de données
+     * @throws IllegalArgumentException si la durée de visibilité est négative, ou si la durée de
+     *                                  conservation lui est inférieure
+     * @throws NullPointerException     si l'exécuteur est nul
+     */
+    public AircraftStateManager(AircraftDatabase aircraftDatabase, Duration stateLifetime,
+                                Duration aircraftLifetime, Executor lookupExecutor) {
+        this(aircraftDatabase, stateLifetime, aircraftLifetime, lookupExecutor, null);
+    }
+
+    /**
+     * Constructeur de AircraftStateManager qui prend comme arguments, en plus de ceux du
+     * constructeur précédent, la position du récepteur, relativement à laquelle la première
+     * position de chaque aéronef peut être décodée sans attendre une paire de messages
+     *
+     * @param aircraftDatabase les caractéristiques fixes des aéronefs
+     * @param stateLifetime    la durée de visibilité d'un état après le dernier message reçu
+     * @param aircraftLifetime la durée de conservation d'un aéronef après le dernier message reçu
+     * @param lookupExecutor   l'exécuteur des recherches dans la base de données
+     * @param receiverPosition la position du récepteur, ou null si elle est inconnue
+     * @throws IllegalArgumentException si la durée de visibilité est négative, ou si la durée de
+     *                                  conservation lui est inférieure
+     * @throws NullPointerException     si l'exécuteur est nul
+     */
+    public AircraftStateManager(AircraftDatabase aircraftDatabase, Duration stateLifetime,
+                                Duration aircraftLifetime, Executor lookupExecutor,
+                                GeoPos receiverPosition) {
+        Preconditions.checkArgument(!stateLifetime.isNegative()
+                && aircraftLifetime.compareTo(stateLifetime) >= 0);
         this.aircraftDatabase = aircraftDatabase;
-        this.map = new HashMap<>();
+        this.lookupExecutor = Objects.requireNonNull(lookupExecutor);
+        this.receiverPosition = receiverPosition;
+        this.pendingLookups = ConcurrentHashMap.newKeySet();
+        this.completedLookups = new ConcurrentLinkedQueue<>();
+        this.stateLifetimeNs = stateLifetime.toNanos();
+        this.aircraftLifetimeNs = aircraftLifetime.toNanos();
+        this.map = new IcaoAddressTable<>();
+        this.aircraftQueue = new ExpiryQueue<>();
+        this.visibleQueue = new ExpiryQueue<>();
 
         this.observableAircraftStates = FXCollections.observableSet();
         this.unmodifiableStates = FXCollections.unmodifiableObservableSet(observableAircraftStates);
@@ -52,39 +194,122 @@ public final class AircraftStateManager {
         return unmodifiableStates;
     }
 
+    /**
+     * Méthode qui retourne le nombre d'aéronefs connus, que leur état soit visible ou non
+     *
+     * @return le nombre d'aéronefs connus
+     */
+    public int aircraftCount() {
+        return map.size();
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'états retirés de l'ensemble observable par purge
+     *
+     * @return le nombre d'états expirés
+     */
+    public long expiredStates() {
+        return expiredStates;
+    }
+
+    /**
+     * Méthode qui retourne le nombre d'aéronefs oubliés par purge
+     *
+     * @return le nombre d'aéronefs expirés
+     */
+    public long expiredAircraft() {
+        return expiredAircraft;
+    }
+
     /**
      * La méthode prend en argument un message et l'utilise pour mettre à jour l'état de l'aéronef
-     * qui l'a envoyé en créant cet état lorsque le message est le premier reçu de cet aéronef
+     * qui l'a envoyé en créant cet état lorsque le message est le premier reçu de cet aéronef.
+     * Les résultats des recherches dans la base de données reçus depuis l'appel précédent sont
+     * ensuite appliqués aux états des aéronefs concernés, de sorte que le message est pris en
+     * compte même si l'une d'elles a échoué.
      *
      * @param message le message en question
-     * @throws IOException lorsque qu'il y a des problèmes d'entrée/sortie
+     * @throws IOException lorsque qu'une recherche dans la base de données a échoué, l'exception
+     *                     l'ayant fait échouer étant sa cause si ce n'est pas une IOException
      */
     public void updateWithMessage(Message message) throws IOException {
         IcaoAddress icaoAddress = message.icaoAddress();
 
-        if ((!map.containsKey(icaoAddress))) {
-            map.put(icaoAddress, new AircraftStateAccumulator<>
-                    (new ObservableAircraftState(icaoAddress, aircraftDatabase.get(icaoAddress))));
+        Aircraft aircraft = map.get(icaoAddress.value());
+        if (aircraft == null) {
+            ObservableAircraftState state = new ObservableAircraftState(icaoAddress, null);
+            aircraft = new Aircraft(receiverPosition == null
+                    ? new AircraftStateAccumulator<>(state)
+                    : new AircraftStateAccumulator<>(state, receiverPosition));
+            map.put(icaoAddress.value(), aircraft);
+            startLookup(icaoAddress);
         }
 
-        map.get(icaoAddress).update(message);
-        ObservableAircraftState aircraftState = map.get(icaoAddress).stateSetter();
+        aircraft.accumulator.update(message);
+        aircraftQueue.touch(aircraft.node, message.timeStampNs());
 
-        if (aircraftState.getPosition() != null) {
-            observableAircraftStates.add(aircraftState);
+        if (aircraft.state().getPosition() != null) {
+            if (!aircraft.visibleNode.isQueued()) observableAircraftStates.add(aircraft.state());
+            visibleQueue.touch(aircraft.visibleNode, message.timeStampNs());
         }
 
         lastMessageTimeStampNs = message.timeStampNs();
+        applyLookups();
     }
 
     /**
-     * Méthode qui supprime de l'ensemble des états observables tous
-     * ceux correspondant à des aéronefs dont aucun message n'a été reçu
-     * dans la minute précédant la réception du dernier message passé à updateWithMessage
+     * Méthode qui supprime de l'ensemble des états observables tous ceux correspondant à des
+     * aéronefs dont aucun message n'a été reçu pendant la durée de visibilité précédant la
+     * réception du dernier message passé à updateWithMessage, puis oublie les aéronefs dont aucun
+     * message n'a été reçu pendant la durée de conservation. Seuls les aéronefs expirés sont
+     * parcourus.
      */
     public void purge() {
-        observableAircraftStates.removeIf(observableAircraftState ->
-                lastMessageTimeStampNs - observableAircraftState.getLastMessageTimeStampNs()
-                        > MAX_TEMPS);
+        Aircraft aircraft;
+        while ((aircraft = visibleQueue.pollExpired(lastMessageTimeStampNs - stateLifetimeNs))
+                != null) {
+            observableAircraftStates.remove(aircraft.state());
+            expiredStates++;
+        }
+        while ((aircraft = aircraftQueue.pollExpired(lastMessageTimeStampNs - aircraftLifetimeNs))
+                != null) {
+            if (aircraft.visibleNode.isQueued()) {
+                visibleQueue.remove(aircraft.visibleNode);
+                observableAircraftStates.remove(aircraft.state());
+            }
+            map.remove(aircraft.state().getIcaoAddress().value());
+            expiredAircraft++;
+        }
+    }
+
+    private void startLookup(IcaoAddress icaoAddress) {
+        if (!pendingLookups.add(icaoAddress)) return;
+        lookupExecutor.execute(() -> {
+            AircraftData aircraftData = null;
+            Exception failure = null;
+            try {
+                aircraftData = aircraftDatabase.get(icaoAddress);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                pendingLookups.remove(icaoAddress);
+                completedLookups.add(new Lookup(icaoAddress, aircraftData, failure));
+            }
+        });
+    }
+
+    private void applyLookups() throws IOException {
+        Exception failure = null;
+        Lookup lookup;
+        while ((lookup = completedLookups.poll()) != null) {
+            if (lookup.failure() != null) {
+                failure = lookup.failure();
+                continue;
+            }
+            Aircraft aircraft = map.get(lookup.icaoAddress().value());
+            if (aircraft != null) aircraft.state().setAircraftData(lookup.aircraftData());
+        }
+        if (failure instanceof IOException ioException) throw ioException;
+        if (failure != null) throw new IOException(failure);
     }
-}
\ No newline at end of file
+}
@@ -107,25 +107,25 @@ public final class AircraftTableController {
 
         TableColumn<ObservableAircraftState, String> registrationColumn =
                 createTextTableColumn("Immatriculation",
-                        f -> new ReadOnlyObjectWrapper<>(f.getAircraftData()),
+                        ObservableAircraftState::aircraftDataProperty,
                         d -> d.registration().string(),
                         REGISTRATION_COLUMN_SIZE);
 
         TableColumn<ObservableAircraftState, String> modelColumn =
                 createTextTableColumn("Modèle",
-                        f -> new ReadOnlyObjectWrapper<>(f.getAircraftData()),
+                        ObservableAircraftState::aircraftDataProperty,
                         AircraftData::model,
                         MODEL_COLUMN_SIZE);
 
         TableColumn<ObservableAircraftState, String> typeColumn =
                 createTextTableColumn("Type",
-                        f -> new ReadOnlyObjectWrapper<>(f.getAircraftData()),
+                        ObservableAircraftState::aircraftDataProperty,
                         d -> d.typeDesignator().string(),
                         TYPE_COLUMN_SIZE);
 
         TableColumn<ObservableAircraftState, String> descriptionColumn =
                 createTextTableColumn("Description",
-                        f -> new ReadOnlyObjectWrapper<>(f.getAircraftData()),
+                        ObservableAircraftState::aircraftDataProperty,
                         d -> d.description().string(),
                         DESCRIPTION_COLUMN_SIZE);
 
@@ -0,0 +1,112 @@
+package ch.epfl.javions.gui;
+
+/**
+ * Représente une file d'expiration, c.-à-d. une liste doublement chaînée de valeurs ordonnées
+ * selon l'horodatage de leur dernière activité, la plus ancienne en tête.
+ * <p>
+ * Les horodatages des messages étant croissants, une valeur active est simplement déplacée en
+ * queue de file, en temps constant, et les valeurs expirées sont toutes en tête, de sorte que leur
+ * retrait ne parcourt que les valeurs expirées. Chaque valeur est chaînée par son propre nœud, créé
+ * une fois pour toutes, de sorte que la file ne fait aucune allocation.
+ *
+ * @param <T> le type des valeurs de la file
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+final class ExpiryQueue<T> {
+
+    /**
+     * Représente le nœud chaînant une valeur dans une file d'expiration
+     *
+     * @param <T> le type de la valeur du nœud
+     */
+    static final class Node<T> {
+        private final T value;
+        private long timeStampNs;
+        private Node<T> previous;
+        private Node<T> next;
+
+        /**
+         * Construit un nœud, qui n'est dans aucune file, pour la valeur donnée.
+         *
+         * @param value la valeur du nœud
+         */
+        Node(T value) {
+            this.value = value;
+        }
+
+        /**
+         * Retourne vrai ssi le nœud est dans une file.
+         *
+         * @return vrai ssi le nœud est dans une file
+         */
+        boolean isQueued() {
+            return next != null;
+        }
+    }
+
+    private final Node<T> sentinel = new Node<>(null);
+    private int size;
+
+    /**
+     * Construit une file d'expiration vide.
+     */
+    ExpiryQueue() {
+        sentinel.previous = sentinel;
+        sentinel.next = sentinel;
+    }
+
+    /**
+     * Retourne le nombre de valeurs de la file.
+     *
+     * @return le nombre de valeurs de la file
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Place le nœud donné en queue de file, en lui associant l'horodatage donné, qu'il soit déjà
+     * dans la file ou non.
+     *
+     * @param node        le nœud de la valeur active
+     * @param timeStampNs l'horodatage de la dernière activité de la valeur, en nanosecondes
+     */
+    void touch(Node<T> node, long timeStampNs) {
+        remove(node);
+        node.timeStampNs = timeStampNs;
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+        size++;
+    }
+
+    /**
+     * Retire de la file le nœud donné, s'il s'y trouve.
+     *
+     * @param node le nœud à retirer
+     */
+    void remove(Node<T> node) {
+        if (!node.isQueued()) return;
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+        size--;
+    }
+
+    /**
+     * Retire et retourne la valeur en tête de file si son horodatage est strictement inférieur à
+     * la limite donnée, ou retourne null sinon.
+     *
+     * @param limitNs l'horodatage en dessous duquel une valeur est expirée, en nanosecondes
+     * @return la plus ancienne valeur expirée, ou null s'il n'y en a aucune
+     */
+    T pollExpired(long limitNs) {
+        Node<T> first = sentinel.next;
+        if (first == sentinel || first.timeStampNs >= limitNs) return null;
+        remove(first);
+        return first.value;
+    }
+}
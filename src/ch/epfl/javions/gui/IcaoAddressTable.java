@@ -0,0 +1,149 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Représente une table associative dont les clés sont les valeurs de 24 bits des adresses OACI,
+ * stockées telles quelles, sans objet ni emballage, dans un tableau d'entiers.
+ * <p>
+ * La table est à adressage ouvert et sondage linéaire : une clé et sa valeur occupent le même
+ * index dans deux tableaux parallèles, de sorte que la recherche d'un aéronef déjà connu ne
+ * parcourt en général qu'une seule case. La table double de taille dès qu'elle est à moitié
+ * pleine. Le retrait d'une clé décale les clés suivantes de sa série vers les cases libérées, de
+ * sorte que la table ne contient jamais de marque de suppression.
+ *
+ * @param <V> le type des valeurs de la table
+ * @author Ethan Boren (361582)
+ * @author Ryad Aouak (315258)
+ */
+final class IcaoAddressTable<V> {
+
+    private static final int EMPTY = -1;
+    private static final int ADDRESS_BITS = 24;
+    private static final int INITIAL_CAPACITY_BITS = 10;
+
+    private int[] keys;
+    private Object[] values;
+    private int capacityBits;
+    private int size;
+
+    /**
+     * Construit une table vide.
+     */
+    IcaoAddressTable() {
+        allocate(INITIAL_CAPACITY_BITS);
+    }
+
+    /**
+     * Retourne le nombre d'entrées de la table.
+     *
+     * @return le nombre d'entrées de la table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la valeur associée à l'adresse donnée, ou null s'il n'y en a aucune.
+     *
+     * @param address la valeur de l'adresse OACI
+     * @return la valeur associée à l'adresse, ou null
+     */
+    @SuppressWarnings("unchecked")
+    V get(int address) {
+        int slot = slot(address);
+        return keys[slot] == address ? (V) values[slot] : null;
+    }
+
+    /**
+     * Associe la valeur donnée à l'adresse donnée, en remplaçant la valeur éventuellement
+     * associée à cette adresse.
+     *
+     * @param address la valeur de l'adresse OACI
+     * @param value   la valeur à associer à l'adresse
+     * @throws IllegalArgumentException si l'adresse n'est pas une valeur de 24 bits
+     * @throws NullPointerException     si la valeur est nulle
+     */
+    void put(int address, V value) {
+        Preconditions.checkArgument(address >>> ADDRESS_BITS == 0);
+        if (value == null) throw new NullPointerException();
+        int slot = slot(address);
+        if (keys[slot] == EMPTY) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = slot(address);
+            }
+            keys[slot] = address;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Retire de la table l'adresse donnée et la valeur qui lui est associée, et retourne cette
+     * valeur, ou null si l'adresse n'est pas dans la table.
+     *
+     * @param address la valeur de l'adresse OACI
+     * @return la valeur qui était associée à l'adresse, ou null
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int address) {
+        int slot = slot(address);
+        if (keys[slot] != address) return null;
+        V value = (V) values[slot];
+
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(keys[next]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY;
+        values[free] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Retourne l'index de la case contenant l'adresse donnée, ou de la case vide où elle serait
+     * insérée.
+     */
+    private int slot(int address) {
+        int mask = keys.length - 1;
+        int slot = home(address);
+        while (keys[slot] != address && keys[slot] != EMPTY) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Retourne l'index de la première case examinée lors de la recherche de l'adresse donnée.
+     */
+    private int home(int address) {
+        return (address * 0x9E3779B1) >>> (Integer.SIZE - capacityBits);
+    }
+
+    private void allocate(int capacityBits) {
+        this.capacityBits = capacityBits;
+        keys = new int[1 << capacityBits];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[1 << capacityBits];
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacityBits + 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
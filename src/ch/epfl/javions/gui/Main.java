@@ -1,13 +1,23 @@
 package ch.epfl.javions.gui;
 
-import ch.epfl.javions.ByteString;
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.Units;
+import ch.epfl.javions.adsb.ErrorCorrector;
 import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.adsb.MessageLogReader;
+import ch.epfl.javions.adsb.MessageLogWriter;
 import ch.epfl.javions.adsb.MessageParser;
+import ch.epfl.javions.adsb.MessageReplayer;
 import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.adsb.RawMessageReader;
+import ch.epfl.javions.adsb.RawMessageSource;
 import ch.epfl.javions.aircraft.AircraftDatabase;
-import ch.epfl.javions.demodulation.AdsbDemodulator;
+import ch.epfl.javions.aircraft.AircraftIndex;
+import ch.epfl.javions.demodulation.DemodulationPipeline;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -21,12 +31,13 @@ import javafx.stage.Stage;
 import java.io.*;
 import java.net.URL;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
-
-import static java.lang.Thread.sleep;
+import java.util.function.Consumer;
 
 /**
  * La classe Main contient le programme principal. Comme toute classe représentant une application
@@ -43,11 +54,27 @@ public final class Main extends Application {
     private static final int INITIAL_LONGITUDE = 23_070;
     private static final String TILE_SERVER_URL = "tile.openstreetmap.org";
     private static final Path TILE_CACHE_DIR = Path.of("tile-cache");
+    private static final Path COMPILED_DATABASE = Path.of("aircraft.bin");
     private static final long PURGE_TIME = 1_000_000_000L;
-    private static final long FROM_NANO_TO_MILLISECOND = Duration.ofMillis(1).toNanos();
+    private static final String MAX_REPLAY_SPEED = "max";
+    private static final String RECEIVER_PARAMETER = "receiver";
+    private static final String MAX_ERROR_BITS_PARAMETER = "max-error-bits";
+    private static final String RECORD_PARAMETER = "record";
+    private static final String FROM_PARAMETER = "from";
+    private static final String UNTIL_PARAMETER = "until";
+    private static final String USAGE = """
+            Usage : javions [--receiver=latitude,longitude] [--max-error-bits=1|2]
+                            [--record=journal]
+                    javions [--receiver=latitude,longitude] [--from=instant] [--until=instant]
+                            fichier [vitesse|max]
+            La vitesse de rejeu doit être un nombre strictement positif, et les instants sont au
+            format ISO-8601, p. ex. 2023-03-04T14:05 ou 2023-03-04T13:05:00Z.""";
+    private static final String COORDINATES_SEPARATOR = ",";
     private static final int WIDTH_WINDOW_OPENING = 800;
     private static final int HEIGHT_WINDOW_OPENING = 600;
 
+    private MessageLogWriter messageLog;
+
     /**
      * Méthode main qui ne fait rien d'autre que d'appeler la méthode lunch
      *
@@ -65,13 +92,22 @@ public final class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
-
-        long startTime = System.nanoTime();
+        ConcurrentLinkedDeque<Message> queue = new ConcurrentLinkedDeque<>();
+        GeoPos receiverPosition;
+        Thread thread;
+        try {
+            receiverPosition = receiverPosition();
+            thread = (getParameters().getUnnamed().isEmpty()) ? radioThread(queue) :
+                    fileThread(queue);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            System.err.println(USAGE);
+            Platform.exit();
+            return;
+        }
 
         StatusLineController statusLineController = new StatusLineController();
         ObjectProperty<ObservableAircraftState> selectedAircraftStateProperty
                 = new SimpleObjectProperty<>();
-        ConcurrentLinkedDeque<Message> queue = new ConcurrentLinkedDeque<>();
 
         TileManager tileManager = new TileManager(TILE_CACHE_DIR, TILE_SERVER_URL);
         MapParameters mapParameters =
@@ -82,7 +118,9 @@ public final class Main extends Application {
         assert url != null;
         Path path = Path.of(url.toURI());
         AircraftDatabase dataBase = new AircraftDatabase(path.toString());
-        AircraftStateManager aircraftStateManager = new AircraftStateManager(dataBase);
+        databaseThread(dataBase, statusLineController).start();
+        AircraftStateManager aircraftStateManager =
+                new AircraftStateManager(dataBase, receiverPosition);
 
         statusLineController.aircraftCountProperty()
                 .bind(Bindings.size(aircraftStateManager.states()));
@@ -101,9 +139,6 @@ public final class Main extends Application {
         BorderPane aircraftTablePane = new BorderPane(aircraftTable.pane());
         aircraftTablePane.setTop(statusLineController.pane());
 
-        Thread thread = (getParameters().getRaw().isEmpty()) ? radioThread(queue) :
-                fileThread(queue, startTime);
-
         thread.setDaemon(true);
         thread.start();
 
@@ -124,23 +159,90 @@ public final class Main extends Application {
     }
 
     /**
-     * Crée un thread pour la réception des messages radio.
+     * Retourne la position du récepteur donnée par le paramètre nommé éventuel
+     * --receiver=latitude,longitude, en degrés, ou null s'il n'a pas été donné.
+     *
+     * @return la position du récepteur, ou null si elle est inconnue
+     * @throws IllegalArgumentException si le paramètre n'est pas une position valide
+     */
+    private GeoPos receiverPosition() {
+        String receiver = getParameters().getNamed().get(RECEIVER_PARAMETER);
+        if (receiver == null) return null;
+        String[] coordinates = receiver.split(COORDINATES_SEPARATOR);
+        Preconditions.checkArgument(coordinates.length == 2);
+        return new GeoPos(toT32(Double.parseDouble(coordinates[1].strip())),
+                toT32(Double.parseDouble(coordinates[0].strip())));
+    }
+
+    private static int toT32(double degrees) {
+        return (int) Math.rint(Units.convert(degrees, Units.Angle.DEGREE, Units.Angle.T32));
+    }
+
+    /**
+     * Retourne le correcteur d'erreurs corrigeant au plus le nombre de bits donné par le paramètre
+     * nommé éventuel --max-error-bits=1 ou 2, ou null s'il n'a pas été donné.
+     *
+     * @return le correcteur d'erreurs, ou null si les messages erronés sont écartés
+     * @throws IllegalArgumentException si le paramètre n'est pas 1 ou 2
+     */
+    private ErrorCorrector errorCorrector() {
+        String maxErrorBits = getParameters().getNamed().get(MAX_ERROR_BITS_PARAMETER);
+        return maxErrorBits == null
+                ? null
+                : new ErrorCorrector(Integer.parseInt(maxErrorBits.strip()));
+    }
+
+    /**
+     * Retourne l'instant donné par le paramètre nommé de nom donné, au format ISO-8601, soit
+     * absolu (p. ex. 2023-03-04T13:05:00Z), soit local au fuseau horaire du système (p. ex.
+     * 2023-03-04T14:05), ou null s'il n'a pas été donné.
+     *
+     * @param name le nom du paramètre
+     * @return l'instant donné par le paramètre, ou null s'il n'a pas été donné
+     * @throws IllegalArgumentException si le paramètre n'est pas un instant valide
+     */
+    private Instant instantParameter(String name) {
+        String value = getParameters().getNamed().get(name);
+        if (value == null) return null;
+        try {
+            return Instant.parse(value.strip());
+        } catch (DateTimeParseException instantException) {
+            try {
+                return LocalDateTime.parse(value.strip()).atZone(ZoneId.systemDefault())
+                        .toInstant();
+            } catch (DateTimeParseException localException) {
+                throw new IllegalArgumentException(localException);
+            }
+        }
+    }
+
+    /**
+     * Crée un thread pour la réception des messages radio, qui exécute le pipeline de démodulation
+     * dont les autres étages s'exécutent sur leurs propres threads. Si le paramètre nommé
+     * --record=fichier est donné, les messages bruts reçus sont en plus enregistrés dans un
+     * journal, fermé à l'arrêt de l'application.
      *
      * @param queue La file d'attente concurrente dans laquelle ajouter les messages reçus.
      * @return Le thread créé pour la réception des messages radio.
+     * @throws IOException si le journal ne peut être créé
      */
-    private Thread radioThread(ConcurrentLinkedDeque<Message> queue) {
+    private Thread radioThread(ConcurrentLinkedDeque<Message> queue) throws IOException {
+        ErrorCorrector corrector = errorCorrector();
+        String record = getParameters().getNamed().get(RECORD_PARAMETER);
+        MessageLogWriter log = record == null
+                ? null
+                : new MessageLogWriter(Path.of(record), Instant.now());
+        messageLog = log;
+        Consumer<RawMessage> recorder = log == null ? rawMessage -> {} : rawMessage -> {
+            try {
+                log.write(rawMessage);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        };
         return new Thread(() -> {
-            getParameters().getRaw();
             try {
-                AdsbDemodulator is = new AdsbDemodulator(System.in);
-                RawMessage rawMessage = is.nextMessage();
-                while (rawMessage != null) {
-                    Message message = MessageParser.parse(rawMessage);
-                    if (message != null) queue.add(message);
-
-                    rawMessage = is.nextMessage();
-                }
+                new DemodulationPipeline(System.in, queue::add, corrector, recorder).run();
             } catch (IOException ioException) {
                 throw new UncheckedIOException(ioException);
             }
@@ -148,31 +250,135 @@ public final class Main extends Application {
     }
 
     /**
-     * Crée un thread pour la lecture des messages à partir d'un fichier.
+     * Crée un thread pour le rejeu des messages d'un fichier, à la vitesse donnée par le second
+     * paramètre éventuel, "max" pour les rejouer aussi vite que possible. Le fichier peut être un
+     * journal écrit par MessageLogWriter, reconnu à son nombre magique, dont seuls les messages
+     * reçus entre les instants donnés par les paramètres nommés éventuels --from et --until sont
+     * alors rejoués, ou un fichier de messages bruts, rejoué en entier.
      *
-     * @param queue     la file d'attente concurrente dans laquelle ajouter les messages lus.
-     * @param startTime le temps de démarrage du programme en nanosecondes.
+     * @param queue la file d'attente concurrente dans laquelle ajouter les messages lus.
      * @return le thread créé pour la lecture des messages.
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si la vitesse ou l'un des instants est invalide, ou si
+     *                                  des instants sont donnés pour un fichier qui n'est pas
+     *                                  un journal
      */
-    private Thread fileThread(ConcurrentLinkedDeque<Message> queue, long startTime) {
-        return new Thread(() -> {
+    private Thread fileThread(ConcurrentLinkedDeque<Message> queue) throws IOException {
+        List<String> parameters = getParameters().getUnnamed();
+        Path file = Path.of(parameters.get(0));
+        double speed = replaySpeed(parameters);
+        Instant from = instantParameter(FROM_PARAMETER);
+        Instant until = instantParameter(UNTIL_PARAMETER);
+        boolean isMessageLog = isMessageLog(file);
+        Preconditions.checkArgument(isMessageLog || (from == null && until == null));
 
+        return new Thread(() -> {
             try {
-                for (RawMessage rawMessage : readAllMessages(getParameters().getRaw().get(0))) {
-                    long currentTime = System.nanoTime() - startTime;
-                    if (currentTime < rawMessage.timeStampNs()) {
-                        sleep((rawMessage.timeStampNs() - currentTime)
-                                / FROM_NANO_TO_MILLISECOND);
-                    }
-                    Message message = MessageParser.parse(rawMessage);
-                    if (message != null) {
-                        queue.add(message);
+                if (isMessageLog) {
+                    MessageLogReader reader = new MessageLogReader(file);
+                    MessageReplayer replayer =
+                            replayer(boundedSource(reader, until), queue, speed);
+                    if (from != null) replayer.seek(reader.timeStampNs(from));
+                    replayer.run();
+                } else {
+                    try (RawMessageReader reader =
+                                 new RawMessageReader(new FileInputStream(file.toFile()))) {
+                        replayer(reader, queue, speed).run();
                     }
                 }
             } catch (IOException ioException) {
                 throw new UncheckedIOException(ioException);
-            } catch (InterruptedException interruptedException) {
-                throw new Error(interruptedException);
+            }
+        });
+    }
+
+    /**
+     * Retourne la vitesse de rejeu donnée par le second paramètre éventuel, 1 s'il est absent.
+     *
+     * @throws IllegalArgumentException si le paramètre n'est ni "max" ni un nombre strictement
+     *                                  positif
+     */
+    private static double replaySpeed(List<String> parameters) {
+        if (parameters.size() < 2) return 1;
+        if (parameters.get(1).equals(MAX_REPLAY_SPEED)) return MessageReplayer.AS_FAST_AS_POSSIBLE;
+        double speed = Double.parseDouble(parameters.get(1));
+        Preconditions.checkArgument(speed > 0);
+        return speed;
+    }
+
+    private static MessageReplayer replayer(RawMessageSource source,
+                                            ConcurrentLinkedDeque<Message> queue,
+                                            double speed) {
+        MessageReplayer replayer = new MessageReplayer(source, rawMessage -> {
+            Message message = MessageParser.parse(rawMessage);
+            if (message != null) {
+                queue.add(message);
+            }
+        });
+        replayer.setSpeed(speed);
+        return replayer;
+    }
+
+    /**
+     * Retourne une source des messages du journal donné qui s'épuise au premier message reçu à
+     * l'instant donné ou après lui, ou le journal lui-même si l'instant est nul.
+     */
+    private static RawMessageSource boundedSource(MessageLogReader reader, Instant until) {
+        if (until == null) return reader;
+        long untilNs = reader.timeStampNs(until);
+        return new RawMessageSource() {
+            @Override
+            public RawMessage nextMessage() {
+                RawMessage message = reader.nextMessage();
+                return message != null && message.timeStampNs() < untilNs ? message : null;
+            }
+
+            @Override
+            public void seek(long timeStampNs) {
+                reader.seek(timeStampNs);
+            }
+        };
+    }
+
+    /**
+     * Retourne vrai ssi le fichier donné commence par le nombre magique des journaux.
+     */
+    private static boolean isMessageLog(Path file) throws IOException {
+        try (DataInputStream stream = new DataInputStream(new FileInputStream(file.toFile()))) {
+            return stream.readInt() == MessageLogWriter.MAGIC;
+        } catch (EOFException eofException) {
+            return false;
+        }
+    }
+
+    /**
+     * Ferme le journal éventuellement enregistré, afin que son index et son pied soient écrits.
+     *
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @Override
+    public void stop() throws IOException {
+        if (messageLog != null) messageLog.close();
+    }
+
+    /**
+     * Crée un thread virtuel chargeant l'index de la base de données depuis son fichier compilé,
+     * qui est créé ou recréé à partir du fichier zip s'il est absent ou périmé, les recherches
+     * lisant le fichier zip jusqu'à la fin du chargement, dont la durée et la taille de l'index
+     * sont affichées dans la ligne d'état.
+     *
+     * @param dataBase             la base de données des aéronefs.
+     * @param statusLineController le contrôleur de la ligne d'état.
+     * @return le thread créé pour le chargement de la base de données.
+     */
+    private Thread databaseThread(AircraftDatabase dataBase,
+                                  StatusLineController statusLineController) {
+        return Thread.ofVirtual().unstarted(() -> {
+            try {
+                AircraftIndex index = dataBase.load(COMPILED_DATABASE);
+                Platform.runLater(() -> statusLineController.databaseIndexProperty().set(index));
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
             }
         });
     }
@@ -210,33 +416,4 @@ public final class Main extends Application {
             }
         };
     }
-
-    /**
-     * Lit tous les messages bruts à partir d'un fichier.
-     *
-     * @param fileName Le nom du fichier à partir duquel lire les messages.
-     * @return Une liste contenant tous les messages bruts lus.
-     * @throws IOException En cas d'erreur lors de la lecture du fichier.
-     */
-    private static List<RawMessage> readAllMessages(String fileName) throws IOException {
-        List<RawMessage> list = new ArrayList<>();
-        try (DataInputStream s = new DataInputStream(
-                new BufferedInputStream(
-                        new FileInputStream(fileName)))) {
-            byte[] bytes = new byte[RawMessage.LENGTH];
-            //noinspection InfiniteLoopStatement
-            while (true) {
-                long timeStampNs = s.readLong();
-                int bytesRead = s.readNBytes(bytes, 0, bytes.length);
-                if (bytesRead != RawMessage.LENGTH) {
-                    throw new EOFException();
-                }
-                ByteString message = new ByteString(bytes);
-                RawMessage rawMessage = new RawMessage(timeStampNs, message);
-                list.add(rawMessage);
-            }
-        } catch (EOFException e) {
-            return list;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -19,7 +19,7 @@ import javafx.collections.ObservableList;
 public final class ObservableAircraftState implements AircraftStateSetter {
 
     private final IcaoAddress icaoAddress;
-    private final AircraftData aircraftData;
+    private final ObjectProperty<AircraftData> aircraftData = new SimpleObjectProperty<>();
     private final LongProperty lastMessageTimeStampNs = new SimpleLongProperty();
     private final IntegerProperty category = new SimpleIntegerProperty();
     private final ObjectProperty<CallSign> callSign = new SimpleObjectProperty<>();
@@ -38,11 +38,12 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      * @param icaoAddress  l'adresse OACI de l'aéronef dont l'état est destiné
      *                     à être représenté par l'instance à créer
      * @param aircraftData les caractéristiques fixes de cet aéronef,
-     *                     provenant de la base de données mictronics
+     *                     provenant de la base de données mictronics, ou null si elles ne sont
+     *                     pas (encore) connues
      */
     public ObservableAircraftState(IcaoAddress icaoAddress, AircraftData aircraftData) {
         this.icaoAddress = icaoAddress;
-        this.aircraftData = aircraftData;
+        this.aircraftData.set(aircraftData);
     }
 
     /**
@@ -55,14 +56,33 @@ public final class ObservableAircraftState implements AircraftStateSetter {
     }
 
     /**
-     * Méthode d'accès de AircraftData
+     * Méthode d'accès de AircraftData en lecture seule, ses caractéristiques pouvant n'être
+     * connues qu'après la création de l'état
      *
      * @return l'AircraftData
      */
-    public AircraftData getAircraftData() {
+    public ReadOnlyObjectProperty<AircraftData> aircraftDataProperty() {
         return aircraftData;
     }
 
+    /**
+     * Méthode d'accès de AircraftData
+     *
+     * @return l'AircraftData, ou null si elle n'est pas (encore) connue
+     */
+    public AircraftData getAircraftData() {
+        return aircraftData.get();
+    }
+
+    /**
+     * Méthode de modification de AircraftData
+     *
+     * @param aircraftData les caractéristiques fixes de l'aéronef
+     */
+    public void setAircraftData(AircraftData aircraftData) {
+        this.aircraftData.set(aircraftData);
+    }
+
     /**
      * Méthode d'accès de lastMessageTimeStampNs en lecture seule
      *
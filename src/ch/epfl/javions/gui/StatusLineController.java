@@ -1,14 +1,17 @@
 package ch.epfl.javions.gui;
 
+import ch.epfl.javions.aircraft.AircraftIndex;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.text.Text;
 
 /**
  * La classe StatusLineController gère la ligne d'état.
- * Elle possède un constructeur par défaut, qui construit le graphe de scène, ainsi que trois
+ * Elle possède un constructeur par défaut, qui construit le graphe de scène, ainsi que quatre
  * méthodes publiques.
  *
  * @author Ethan Boren (361582)
@@ -16,9 +19,14 @@ import javafx.scene.text.Text;
  */
 public final class StatusLineController {
 
+    private static final long BYTES_PER_KIB = 1 << 10;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
     private final BorderPane rootPane;
     private final LongProperty aircraftCountProperty = new SimpleLongProperty(0L);
     private final LongProperty messageCountProperty = new SimpleLongProperty(0L);
+    private final ObjectProperty<AircraftIndex> databaseIndexProperty =
+            new SimpleObjectProperty<>();
 
 
     /**
@@ -30,7 +38,11 @@ public final class StatusLineController {
 
         Text messageCountText = textInStatusLine("Messages reçus", messageCountProperty);
 
-        rootPane = new BorderPane(null, null,
+        Text databaseText = new Text();
+        databaseText.textProperty().bind(Bindings.createStringBinding(
+                () -> databaseStatus(databaseIndexProperty.get()), databaseIndexProperty));
+
+        rootPane = new BorderPane(databaseText, null,
                 messageCountText, null, aircraftCountText);
 
         rootPane.getStylesheets().add("status.css");
@@ -64,6 +76,25 @@ public final class StatusLineController {
         return messageCountProperty;
     }
 
+    /**
+     * Retourne la propriété (modifiable) contenant l'index de la base de données des aéronefs une
+     * fois chargé, ou null tant qu'il ne l'est pas, dont la taille, l'empreinte mémoire et la
+     * durée de chargement sont affichées.
+     *
+     * @return la propriété (modifiable) contenant l'index de la base de données chargé.
+     */
+    public ObjectProperty<AircraftIndex> databaseIndexProperty() {
+        return databaseIndexProperty;
+    }
+
+    private static String databaseStatus(AircraftIndex index) {
+        if (index == null) return "Base de données : chargement…";
+        return String.format("Base de données : %d aéronefs, %d Kio, %d ms",
+                index.size(),
+                index.footprintBytes() / BYTES_PER_KIB,
+                index.loadTimeNs() / NANOS_PER_MILLI);
+    }
+
     /**
      * Méthode privée qui retourne les deux textes qui seront dans la ligne d'état.
      *
@@ -1,7 +1,10 @@
 package ch.epfl.javions;
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import java.util.HexFormat;
 import java.util.List;
 
@@ -166,4 +169,33 @@ public class Crc24Test {
             assertEquals(0, crc24.crc(m));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void crc24CrcOfLongsMatchesCrcOfBytes() {
+        var rng = TestRandomizer.newRandom();
+        for (var generator : new int[]{Crc24.GENERATOR, 0xFACE51}) {
+            var crc24 = new Crc24(generator);
+            for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+                var high = rng.nextLong();
+                var low = rng.nextLong() & ((1L << 48) - 1);
+                var bytes = new byte[14];
+                for (int j = 0; j < 8; j += 1) bytes[j] = (byte) (high >>> (56 - 8 * j));
+                for (int j = 0; j < 6; j += 1) bytes[8 + j] = (byte) (low >>> (40 - 8 * j));
+                assertEquals(crc24.crc(bytes), crc24.crc(high, low));
+
+                var shortMessage = high >>> 8;
+                assertEquals(crc24.crc(Arrays.copyOf(bytes, 7)), crc24.crc(shortMessage));
+            }
+        }
+    }
+
+    @Test
+    void crc24CrcOfLongsIsZeroOnAdsbMessages() {
+        var crc24 = new Crc24(Crc24.GENERATOR);
+        for (var message : ADSB_MESSAGES) {
+            var high = Long.parseUnsignedLong(message.substring(0, 16), 16);
+            var low = Long.parseUnsignedLong(message.substring(16), 16);
+            assertEquals(0, crc24.crc(high, low));
+        }
+    }
+}
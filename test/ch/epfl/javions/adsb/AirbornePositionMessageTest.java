@@ -370,4 +370,15 @@ public class AirbornePositionMessageTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void airbornePositionMessageAltitudeWorksOnKnownValues() {
+        assertEquals(-1000 * 0.3048, AirbornePositionMessage.altitude(0b0000_0001_0000), 1e-9);
+        assertEquals(-975 * 0.3048, AirbornePositionMessage.altitude(0b0000_0001_0001), 1e-9);
+        assertEquals(50175 * 0.3048, AirbornePositionMessage.altitude(0b1111_1111_1111), 1e-9);
+        assertTrue(Double.isNaN(AirbornePositionMessage.altitude(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> AirbornePositionMessage.altitude(-1));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> AirbornePositionMessage.altitude(1 << 12));
+    }
+}
@@ -222,8 +222,10 @@ class AircraftStateAccumulatorTest
                 new ParityXY(1, 93364, 89266)
         };
         var expectedLongitudeDeg = 6.57520;
+        // Après la première position, le message pair du changement de bande est décodé
+        // localement, relativement à cette position
         var expectedLatitudesDeg = new double[]{
-                Double.NaN, 46.8672, 46.8672, 46.8674
+                Double.NaN, 46.8672, 46.8674, 46.8674
         };
 
         var icao = new IcaoAddress("ABCDEF");
@@ -247,6 +249,75 @@ class AircraftStateAccumulatorTest
         }
     }
 
+    @Test
+    void aircraftStateAccumulatorDecodesFirstPositionRelativeToReceiver() {
+        var icao = new IcaoAddress("ABCDEF");
+        var stateSetter = new AircraftState();
+        var receiver = new GeoPos((int) Math.rint(Math.scalb(6.6 / 360, 32)),
+                (int) Math.rint(Math.scalb(46.5 / 360, 32)));
+        var accumulator = new AircraftStateAccumulator<>(stateSetter, receiver);
+
+        accumulator.update(new AirbornePositionMessage(113L, icao, 567d, 0, cpr(98152), cpr(106326)));
+        assertNotNull(stateSetter.position);
+        assertEquals(6.57520, Math.toDegrees(stateSetter.position.longitude()), 1e-4);
+        assertEquals(46.8672, Math.toDegrees(stateSetter.position.latitude()), 1e-4);
+    }
+
+    @Test
+    void aircraftStateAccumulatorPrefersGlobalDecodingWhenPairIsValid() {
+        var icao = new IcaoAddress("ABCDEF");
+        var stateSetter = new AircraftState();
+        var accumulator = new AircraftStateAccumulator<>(stateSetter);
+
+        accumulator.update(new AirbornePositionMessage(0, icao, 567d, 0, cpr(98152), cpr(98838)));
+        accumulator.update(new AirbornePositionMessage(1_000, icao, 567d, 1, cpr(95758), cpr(81899)));
+        assertNotNull(stateSetter.position);
+        accumulator.update(new AirbornePositionMessage(2_000, icao, 567d, 0, cpr(98152), cpr(98838)));
+        var expected = CprDecoder.decodePosition(cpr(98152), cpr(98838), cpr(95758), cpr(81899), 0);
+        assertEquals(expected, stateSetter.position);
+    }
+
+    @Test
+    void aircraftStateAccumulatorRejectsImpossibleLocalPositionAndWaitsForGlobalOne() {
+        var icao = new IcaoAddress("ABCDEF");
+        var stateSetter = new AircraftState();
+        var accumulator = new AircraftStateAccumulator<>(stateSetter);
+        var secondNs = 1_000_000_000L;
+
+        accumulator.update(new AirbornePositionMessage(0, icao, 567d, 0, cpr(98152), cpr(106326)));
+        accumulator.update(new AirbornePositionMessage(secondNs, icao, 567d, 1, cpr(95758), cpr(89262)));
+        var first = stateSetter.position;
+        assertNotNull(first);
+
+        // La paire n'est plus valide, et le message impair est décodé localement à une
+        // demi-zone de longitude de la dernière position, ce qui est impossible en 9.5 s
+        var t = 10 * secondNs + secondNs / 2;
+        accumulator.update(new AirbornePositionMessage(t, icao, 567d, 1,
+                cpr((95758 + (1 << 16)) % (1 << 17)), cpr(89262)));
+        assertSame(first, stateSetter.position);
+
+        // La dernière position ayant été oubliée, un message correct n'est pas décodé localement
+        accumulator.update(new AirbornePositionMessage(t + 1_000, icao, 567d, 1, cpr(95758), cpr(89262)));
+        assertSame(first, stateSetter.position);
+
+        accumulator.update(new AirbornePositionMessage(t + 2_000, icao, 567d, 0, cpr(98152), cpr(106326)));
+        assertNotSame(first, stateSetter.position);
+        assertEquals(6.57520, Math.toDegrees(stateSetter.position.longitude()), 1e-4);
+        assertEquals(46.8672, Math.toDegrees(stateSetter.position.latitude()), 1e-4);
+    }
+
+    @Test
+    void aircraftStateAccumulatorIgnoresReceiverRelativePositionOutOfRange() {
+        var icao = new IcaoAddress("ABCDEF");
+        var stateSetter = new AircraftState();
+        var receiver = new GeoPos((int) Math.rint(Math.scalb(10.8 / 360, 32)),
+                (int) Math.rint(Math.scalb(46.5 / 360, 32)));
+        var accumulator = new AircraftStateAccumulator<>(stateSetter, receiver);
+
+        accumulator.update(new AirbornePositionMessage(113L, icao, 567d, 0, cpr(98152), cpr(106326)));
+        assertNull(stateSetter.position);
+    }
+
     private static final class AircraftState implements AircraftStateSetter {
         long lastMessageTimeStampNs = -1L;
         int category = -1;
@@ -3,8 +3,11 @@ package ch.epfl.javions.adsb;
 import ch.epfl.javions.ByteString;
 import ch.epfl.javions.GeoPos;
 import ch.epfl.javions.Units;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static java.lang.Math.scalb;
 import static java.lang.Math.toDegrees;
 import static org.junit.jupiter.api.Assertions.*;
@@ -324,4 +327,146 @@ public class CprDecoderTest {
         }
     }
 
-}
\ No newline at end of file
+
+    private static double cprFraction(double angle, double zoneLength) {
+        var fraction = Math.floorMod(Math.round(scalb(angle / zoneLength, 17)), 1 << 17);
+        return scalb((double) fraction, -17);
+    }
+
+    private static int longitudeZones(double latitude) {
+        var a = Math.acos(1 - (1 - Math.cos(2 * Math.PI / 60))
+                / Math.pow(Math.cos(2 * Math.PI * latitude), 2));
+        return Double.isNaN(a) ? 1 : (int) Math.floor(2 * Math.PI / a);
+    }
+
+    @Test
+    void cprDecoderDecodesEncodedPositionsInEveryLongitudeZoneBand() {
+        var rng = TestRandomizer.newRandom();
+        var decoded = 0;
+        var iterations = 100 * TestRandomizer.RANDOM_ITERATIONS;
+        for (int i = 0; i < iterations; i += 1) {
+            var latitude = rng.nextDouble(-0.24, 0.24);
+            var longitude = rng.nextDouble(-0.5, 0.5);
+            var zones = longitudeZones(latitude);
+            var y0 = cprFraction(latitude, 1d / 60);
+            var y1 = cprFraction(latitude, 1d / 59);
+            var x0 = cprFraction(longitude, 1d / zones);
+            var x1 = cprFraction(longitude, 1d / Math.max(zones - 1, 1));
+
+            var position = CprDecoder.decodePosition(x0, y0, x1, y1, i & 1);
+            if (position == null) continue;
+            decoded += 1;
+            assertEquals(latitude, scalb((double) position.latitudeT32(), -32), 1e-5);
+            var longitudeError = longitude - scalb((double) position.longitudeT32(), -32);
+            assertEquals(0, longitudeError - Math.rint(longitudeError), 1e-5);
+        }
+        assertTrue(decoded > 0.9 * iterations);
+    }
+
+    @Test
+    void cprDecoderDecodeLocalPositionWorksNearReference() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < 100 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var latitude = rng.nextDouble(-0.24, 0.24);
+            var longitude = rng.nextDouble(-0.5, 0.5);
+            var parity = i & 1;
+            var latitudeLength = 1d / (60 - parity);
+            var y = cprFraction(latitude, latitudeLength);
+            var encodedLatitude = latitudeLength * (Math.floor(latitude / latitudeLength) + y);
+            var zones = Math.max(longitudeZones(encodedLatitude) - parity, 1);
+            var x = cprFraction(longitude, 1d / zones);
+
+            var referenceLatitude = latitude + rng.nextDouble(-0.002, 0.002);
+            var referenceLongitude = longitude + rng.nextDouble(-0.002, 0.002);
+            var reference = new GeoPos((int) Math.rint(scalb(referenceLongitude, 32)),
+                    (int) Math.rint(scalb(referenceLatitude, 32)));
+
+            var position = CprDecoder.decodeLocalPosition(x, y, parity, reference);
+            assertNotNull(position);
+            assertEquals(latitude, scalb((double) position.latitudeT32(), -32), 1e-5);
+            var longitudeError = longitude - scalb((double) position.longitudeT32(), -32);
+            assertEquals(0, longitudeError - Math.rint(longitudeError), 1e-5);
+        }
+    }
+
+    @Test
+    void cprDecoderDecodeLocalPositionMatchesDecodePosition() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < 10 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var latitude = rng.nextDouble(-0.24, 0.24);
+            var longitude = rng.nextDouble(-0.5, 0.5);
+            var zones = longitudeZones(latitude);
+            var y0 = cprFraction(latitude, 1d / 60);
+            var y1 = cprFraction(latitude, 1d / 59);
+            var x0 = cprFraction(longitude, 1d / zones);
+            var x1 = cprFraction(longitude, 1d / Math.max(zones - 1, 1));
+
+            var global = CprDecoder.decodePosition(x0, y0, x1, y1, 0);
+            if (global == null) continue;
+            assertEquals(global, CprDecoder.decodeLocalPosition(x0, y0, 0, global));
+        }
+    }
+
+    @Test
+    void cprDecoderDecodeLocalPositionThrowsOnInvalidParity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CprDecoder.decodeLocalPosition(0, 0, 2, new GeoPos(0, 0)));
+    }
+
+    @Test
+    void cprDecoderDecodePositionsMatchesDecodePosition() {
+        var rng = TestRandomizer.newRandom();
+        var count = 40_000;
+        double[] x0 = new double[count], y0 = new double[count];
+        double[] x1 = new double[count], y1 = new double[count];
+        int[] mostRecent = new int[count];
+        for (int i = 0; i < count; i += 1) {
+            x0[i] = rng.nextInt(1 << 17) / (double) (1 << 17);
+            y0[i] = rng.nextInt(1 << 17) / (double) (1 << 17);
+            x1[i] = rng.nextInt(1 << 17) / (double) (1 << 17);
+            y1[i] = rng.nextInt(1 << 17) / (double) (1 << 17);
+            mostRecent[i] = rng.nextInt(2);
+        }
+
+        int[] longitudes = new int[count], latitudes = new int[count];
+        int[] parallelLongitudes = new int[count], parallelLatitudes = new int[count];
+        var decoded = CprDecoder.decodePositions(x0, y0, x1, y1, mostRecent,
+                longitudes, latitudes);
+        var parallelDecoded = CprDecoder.decodePositions(x0, y0, x1, y1, mostRecent,
+                parallelLongitudes, parallelLatitudes, ForkJoinPool.commonPool());
+
+        var expectedDecoded = 0;
+        for (int i = 0; i < count; i += 1) {
+            var position = CprDecoder.decodePosition(x0[i], y0[i], x1[i], y1[i], mostRecent[i]);
+            if (position == null) {
+                assertEquals(CprDecoder.INVALID_LATITUDE_T32, latitudes[i]);
+            } else {
+                expectedDecoded += 1;
+                assertEquals(position.longitudeT32(), longitudes[i]);
+                assertEquals(position.latitudeT32(), latitudes[i]);
+            }
+        }
+        assertEquals(expectedDecoded, decoded);
+        assertEquals(expectedDecoded, parallelDecoded);
+        assertArrayEquals(longitudes, parallelLongitudes);
+        assertArrayEquals(latitudes, parallelLatitudes);
+    }
+
+    @Test
+    void cprDecoderDecodePositionsThrowsOnInvalidArguments() {
+        double[] values = new double[2];
+        assertThrows(IllegalArgumentException.class, () -> CprDecoder.decodePositions(values,
+                values, values, values, new int[2], new int[2], new int[1]));
+        assertThrows(IllegalArgumentException.class, () -> CprDecoder.decodePositions(values,
+                values, values, values, new int[]{0, 2}, new int[2], new int[2]));
+
+        int[] longitudes = {1, 1}, latitudes = {1, 1};
+        assertThrows(IllegalArgumentException.class, () -> CprDecoder.decodePositions(values,
+                values, values, values, new int[]{0, 2}, longitudes, latitudes));
+        assertThrows(IllegalArgumentException.class, () -> CprDecoder.decodePositions(values,
+                values, values, values, new int[]{0, 2}, longitudes, latitudes,
+                ForkJoinPool.commonPool()));
+        assertArrayEquals(new int[]{1, 1}, longitudes);
+        assertArrayEquals(new int[]{1, 1}, latitudes);
+    }
+}
@@ -0,0 +1,92 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorCorrectorTest {
+
+    private static final byte[] MESSAGE = HexFormat.of().parseHex("8D4B17E5F8210002004BB8B1F1AC");
+
+    private static byte[] flipped(int... bits) {
+        var bytes = MESSAGE.clone();
+        for (var bit : bits) bytes[bit / 8] ^= (byte) (0x80 >>> (bit % 8));
+        return bytes;
+    }
+
+    @Test
+    void errorCorrectorConstructorThrowsOnInvalidMaxErrorBits() {
+        assertThrows(IllegalArgumentException.class, () -> new ErrorCorrector(0));
+        assertThrows(IllegalArgumentException.class, () -> new ErrorCorrector(3));
+    }
+
+    @Test
+    void errorCorrectorLeavesValidMessageUnchanged() {
+        var corrector = new ErrorCorrector(2);
+        var bytes = MESSAGE.clone();
+        assertTrue(corrector.correct(bytes));
+        assertArrayEquals(MESSAGE, bytes);
+        assertEquals(0, corrector.singleBitCorrections());
+        assertEquals(0, corrector.doubleBitCorrections());
+    }
+
+    @Test
+    void errorCorrectorCorrectsEverySingleBitError() {
+        var corrector = new ErrorCorrector(1);
+        for (int i = 5; i < 112; i += 1) {
+            var bytes = flipped(i);
+            assertTrue(corrector.correct(bytes));
+            assertArrayEquals(MESSAGE, bytes);
+        }
+        assertEquals(107, corrector.singleBitCorrections());
+    }
+
+    @Test
+    void errorCorrectorCorrectsEveryDoubleBitError() {
+        var corrector = new ErrorCorrector(2);
+        var count = 0;
+        for (int i = 5; i < 112; i += 1) {
+            for (int j = i + 1; j < 112; j += 1) {
+                var bytes = flipped(i, j);
+                assertTrue(corrector.correct(bytes));
+                assertArrayEquals(MESSAGE, bytes);
+                count += 1;
+            }
+        }
+        assertEquals(count, corrector.doubleBitCorrections());
+        assertEquals(0, corrector.singleBitCorrections());
+    }
+
+    @Test
+    void errorCorrectorDoesNotCorrectDoubleBitErrorsInSingleBitMode() {
+        var corrector = new ErrorCorrector(1);
+        var bytes = flipped(20, 70);
+        assertFalse(corrector.correct(bytes));
+        assertArrayEquals(flipped(20, 70), bytes);
+    }
+
+    @Test
+    void errorCorrectorDoesNotCorrectDownLinkFormat() {
+        var corrector = new ErrorCorrector(2);
+        for (int i = 0; i < 5; i += 1) assertFalse(corrector.correct(flipped(i)));
+    }
+
+    @Test
+    void rawMessageOfCorrectsWithoutModifyingArgument() {
+        var rng = TestRandomizer.newRandom();
+        var corrector = new ErrorCorrector(1);
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var bytes = flipped(5 + rng.nextInt(107));
+            var copy = bytes.clone();
+            assertNull(RawMessage.of(100, bytes));
+            var rawMessage = RawMessage.of(100, bytes, corrector);
+            assertNotNull(rawMessage);
+            assertEquals(new ByteString(MESSAGE), rawMessage.bytes());
+            assertArrayEquals(copy, bytes);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLogTest {
+
+    private static final Instant START = Instant.parse("2026-10-16T12:00:00.123456789Z");
+
+    private static Path tempFile() throws IOException {
+        Path path = Files.createTempFile("messages", ".log");
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    private static List<RawMessage> randomMessages(int count) {
+        var rng = TestRandomizer.newRandom();
+        var messages = new ArrayList<RawMessage>();
+        var timeStampNs = 0L;
+        for (int i = 0; i < count; i += 1) {
+            timeStampNs += rng.nextInt(3) * 1_000L;
+            messages.add(new RawMessage(timeStampNs, rng.nextLong(), rng.nextLong(1L << 48)));
+        }
+        return messages;
+    }
+
+    private static Path writeLog(List<RawMessage> messages, int indexInterval) throws IOException {
+        var path = tempFile();
+        try (var writer = new MessageLogWriter(path, START, indexInterval)) {
+            for (var message : messages) writer.write(message);
+            assertEquals(messages.size(), writer.count());
+        }
+        return path;
+    }
+
+    private static long expectedIndexOf(List<RawMessage> messages, long timeStampNs) {
+        var index = 0;
+        while (index < messages.size() && messages.get(index).timeStampNs() < timeStampNs) {
+            index += 1;
+        }
+        return index;
+    }
+
+    private static void assertSeeksLikeLinearScan(List<RawMessage> messages,
+                                                  MessageLogReader reader) {
+        var lastTimeStampNs = messages.isEmpty()
+                ? 0
+                : messages.get(messages.size() - 1).timeStampNs();
+        for (long timeStampNs = -500; timeStampNs <= lastTimeStampNs + 1_500; timeStampNs += 500) {
+            var index = expectedIndexOf(messages, timeStampNs);
+            assertEquals(index, reader.indexOf(timeStampNs));
+            reader.seek(timeStampNs);
+            var message = reader.nextMessage();
+            if (index < messages.size()) assertEquals(messages.get((int) index), message);
+            else assertNull(message);
+        }
+    }
+
+    @Test
+    void messageLogReaderReadsAllWrittenMessages() throws IOException {
+        var messages = randomMessages(5_000);
+        var reader = new MessageLogReader(writeLog(messages, 64));
+        assertEquals(messages.size(), reader.size());
+        for (var message : messages) assertEquals(message, reader.nextMessage());
+        assertNull(reader.nextMessage());
+    }
+
+    @Test
+    void messageLogReaderSeeksToFirstMessageAtOrAfterTimeStamp() throws IOException {
+        var messages = randomMessages(3_000);
+        for (var interval : new int[]{1, 7, 64, MessageLogWriter.DEFAULT_INDEX_INTERVAL}) {
+            assertSeeksLikeLinearScan(messages, new MessageLogReader(writeLog(messages, interval)));
+        }
+    }
+
+    @Test
+    void messageLogReaderSeeksToFirstMessageAtOrAfterInstant() throws IOException {
+        var messages = randomMessages(3_000);
+        var reader = new MessageLogReader(writeLog(messages, 64));
+        assertEquals(START, reader.start());
+        for (var message : List.of(messages.get(0), messages.get(1_234), messages.get(2_999))) {
+            var instant = START.plusNanos(message.timeStampNs());
+            assertEquals(message.timeStampNs(), reader.timeStampNs(instant));
+            var index = expectedIndexOf(messages, message.timeStampNs());
+            assertEquals(index, reader.indexOf(instant));
+            reader.seek(instant);
+            assertEquals(messages.get((int) index), reader.nextMessage());
+        }
+        assertEquals(0, reader.indexOf(Instant.MIN));
+        assertEquals(messages.size(), reader.indexOf(Instant.MAX));
+        reader.seek(START.plusSeconds(1));
+        assertNull(reader.nextMessage());
+    }
+
+    @Test
+    void messageLogReaderReadsLogThatWasNotClosed() throws IOException {
+        var messages = randomMessages(1_000);
+        var bytes = Files.readAllBytes(writeLog(messages, 16));
+        var unclosed = Arrays.copyOf(bytes,
+                MessageLogWriter.HEADER_SIZE + 999 * RawMessageReader.RECORD_SIZE + 5);
+        var path = Files.write(tempFile(), unclosed);
+
+        var reader = new MessageLogReader(path);
+        var written = messages.subList(0, 999);
+        assertEquals(written.size(), reader.size());
+        assertSeeksLikeLinearScan(written, reader);
+    }
+
+    @Test
+    void messageLogReaderWorksOnEmptyLog() throws IOException {
+        var reader = new MessageLogReader(writeLog(List.of(), 16));
+        assertEquals(0, reader.size());
+        assertEquals(0, reader.indexOf(1_000));
+        assertNull(reader.nextMessage());
+    }
+
+    @Test
+    void messageLogReaderThrowsOnOtherFiles() throws IOException {
+        var path = Files.write(tempFile(), new byte[64]);
+        assertThrows(IOException.class, () -> new MessageLogReader(path));
+    }
+
+    @Test
+    void messageLogReaderThrowsOnOtherVersions() throws IOException {
+        var bytes = Files.readAllBytes(writeLog(randomMessages(10), 16));
+        bytes[Integer.BYTES + Integer.BYTES - 1] = MessageLogWriter.VERSION - 1;
+        var path = Files.write(tempFile(), bytes);
+        assertThrows(IOException.class, () -> new MessageLogReader(path));
+    }
+
+    @Test
+    void messageLogWriterThrowsOnDecreasingTimeStamps() throws IOException {
+        try (var writer = new MessageLogWriter(tempFile(), START)) {
+            writer.write(new RawMessage(10, 0, 0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(new RawMessage(9, 0, 0)));
+        }
+    }
+}
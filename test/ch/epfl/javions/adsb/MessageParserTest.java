@@ -2,6 +2,7 @@ package ch.epfl.javions.adsb;
 
 import ch.epfl.javions.ByteString;
 import ch.epfl.javions.Crc24;
+import ch.epfl.javions.aircraft.IcaoAddress;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -165,4 +166,82 @@ public class MessageParserTest {
         }
     }
 
-}
\ No newline at end of file
+
+    private static final class ListSink implements MessageSink {
+        private final List<Message> messages = new ArrayList<>();
+
+        @Override
+        public void onIdentification(IcaoAddress icaoAddress, long timeStampNs, int category,
+                                     CallSign callSign) {
+            messages.add(new AircraftIdentificationMessage(timeStampNs, icaoAddress, category,
+                    callSign));
+        }
+
+        @Override
+        public void onPosition(IcaoAddress icaoAddress, long timeStampNs, double altitude,
+                               int parity, double x, double y) {
+            messages.add(new AirbornePositionMessage(timeStampNs, icaoAddress, altitude, parity,
+                    x, y));
+        }
+
+        @Override
+        public void onVelocity(IcaoAddress icaoAddress, long timeStampNs, double speed,
+                               double trackOrHeading) {
+            messages.add(new AirborneVelocityMessage(timeStampNs, icaoAddress, speed,
+                    trackOrHeading));
+        }
+    }
+
+    @Test
+    void parseWithSinkWorksOnKnownMessages() {
+        var sink = new ListSink();
+        for (var message : List.of("8D49529958B302E6E15FA352306B",
+                "8D4D2228234994B7284820323B81",
+                "8D485020994409940838175B284F")) {
+            var rawMessage = new RawMessage(100, ByteString.ofHexadecimalString(message));
+            assertTrue(MessageParser.parse(rawMessage, sink));
+            assertEquals(MessageParser.parse(rawMessage),
+                    sink.messages.get(sink.messages.size() - 1));
+        }
+        assertEquals(3, sink.messages.size());
+    }
+
+    @Test
+    void parseWithSinkTransmitsExpectedAttributesOfKnownMessages() {
+        var sink = new ListSink();
+        var position = new RawMessage(75898000,
+                ByteString.ofHexadecimalString("8D49529958B302E6E15FA352306B"));
+        var identification = new RawMessage(1499146900L,
+                ByteString.ofHexadecimalString("8D4D2228234994B7284820323B81"));
+        var velocity = new RawMessage(208341000,
+                ByteString.ofHexadecimalString("8D4D029F9914E09BB8240567C1D6"));
+        var unknown = new RawMessage(8096200,
+                ByteString.ofHexadecimalString("8D4B17E5F8210002004BB8B1F1AC"));
+
+        assertTrue(MessageParser.parse(position, sink));
+        assertTrue(MessageParser.parse(identification, sink));
+        assertTrue(MessageParser.parse(velocity, sink));
+        assertFalse(MessageParser.parse(unknown, sink));
+        assertEquals(3, sink.messages.size());
+
+        var apm = (AirbornePositionMessage) sink.messages.get(0);
+        assertEquals(75898000, apm.timeStampNs());
+        assertEquals(new IcaoAddress("495299"), apm.icaoAddress());
+        assertEquals(10546.08, apm.altitude(), 1e-2);
+        assertEquals(0, apm.parity());
+        assertEquals(0.6867904663085938, apm.x(), 1e-10);
+        assertEquals(0.7254638671875, apm.y(), 1e-10);
+
+        var aim = (AircraftIdentificationMessage) sink.messages.get(1);
+        assertEquals(1499146900L, aim.timeStampNs());
+        assertEquals(new IcaoAddress("4D2228"), aim.icaoAddress());
+        assertEquals(163, aim.category());
+        assertEquals(new CallSign("RYR7JD"), aim.callSign());
+
+        var avm = (AirborneVelocityMessage) sink.messages.get(2);
+        assertEquals(208341000, avm.timeStampNs());
+        assertEquals(new IcaoAddress("4D029F"), avm.icaoAddress());
+        assertEquals(161.15254486753832, avm.speed(), 1e-10);
+        assertEquals(3.9337627224977503, avm.trackOrHeading(), 1e-10);
+    }
+}
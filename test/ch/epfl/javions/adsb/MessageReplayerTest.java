@@ -0,0 +1,128 @@
+package ch.epfl.javions.adsb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageReplayerTest {
+
+    private static final class ListSource implements RawMessageSource {
+        private final List<RawMessage> messages;
+        private int position;
+
+        private ListSource(List<RawMessage> messages) {
+            this.messages = messages;
+        }
+
+        @Override
+        public RawMessage nextMessage() {
+            return position < messages.size() ? messages.get(position++) : null;
+        }
+
+        @Override
+        public void seek(long timeStampNs) {
+            position = 0;
+            while (position < messages.size()
+                    && messages.get(position).timeStampNs() < timeStampNs) {
+                position += 1;
+            }
+        }
+    }
+
+    private static List<RawMessage> messages(int count, long intervalNs) {
+        var messages = new ArrayList<RawMessage>();
+        for (int i = 0; i < count; i += 1) {
+            messages.add(new RawMessage(i * intervalNs, i, 0));
+        }
+        return messages;
+    }
+
+    @Test
+    void messageReplayerReleasesAllMessagesInOrderAsFastAsPossible() throws Exception {
+        var messages = messages(10_000, 1_000_000_000L);
+        var released = new ArrayList<RawMessage>();
+        var replayer = new MessageReplayer(new ListSource(messages), released::add);
+        replayer.setSpeed(MessageReplayer.AS_FAST_AS_POSSIBLE);
+        replayer.run();
+        assertEquals(messages, released);
+        assertEquals(messages.size(), replayer.releasedCount());
+    }
+
+    @Test
+    void messageReplayerPacesMessagesAccordingToSpeed() throws Exception {
+        var messages = messages(21, 10_000_000L);
+        var releaseTimesNs = new ArrayList<Long>();
+        var replayer = new MessageReplayer(new ListSource(messages),
+                m -> releaseTimesNs.add(System.nanoTime()));
+        replayer.setSpeed(4);
+        var startNs = System.nanoTime();
+        replayer.run();
+
+        assertEquals(messages.size(), releaseTimesNs.size());
+        for (int i = 0; i < messages.size(); i += 1) {
+            var deadlineNs = startNs + messages.get(i).timeStampNs() / 4;
+            assertTrue(releaseTimesNs.get(i) >= deadlineNs);
+        }
+        // Le temps écoulé après run ne fait que réduire la vitesse effective mesurée
+        assertTrue(replayer.achievedSpeed() > 0);
+        assertTrue(replayer.achievedSpeed() <= 4 * 1.05);
+    }
+
+    @Test
+    void messageReplayerComputesAchievedSpeedFromItsClock() throws Exception {
+        var messages = messages(21, 10_000_000L);
+        var clock = new AtomicLong(1_000);
+        var replayer = new MessageReplayer(new ListSource(messages), m -> {}, clock::get);
+        replayer.setSpeed(MessageReplayer.AS_FAST_AS_POSSIBLE);
+        assertEquals(0, replayer.achievedSpeed());
+        replayer.run();
+
+        assertEquals(0, replayer.achievedSpeed());
+        clock.addAndGet(50_000_000L);
+        assertEquals(4, replayer.achievedSpeed());
+        clock.addAndGet(150_000_000L);
+        assertEquals(1, replayer.achievedSpeed());
+    }
+
+    @Test
+    void messageReplayerSeeksBeforeReleasingMessages() throws Exception {
+        var messages = messages(100, 1_000L);
+        var released = new ArrayList<RawMessage>();
+        var replayer = new MessageReplayer(new ListSource(messages), released::add);
+        replayer.setSpeed(MessageReplayer.AS_FAST_AS_POSSIBLE);
+        replayer.seek(42_500);
+        replayer.run();
+        assertEquals(messages.subList(43, 100), released);
+    }
+
+    @Test
+    void messageReplayerStopsWhenAsked() throws Exception {
+        var messages = messages(100, 1_000L);
+        var released = new ArrayList<RawMessage>();
+        var replayer = new MessageReplayer(new ListSource(messages), released::add);
+        replayer.setSpeed(0.001);
+        var thread = new Thread(() -> {
+            try {
+                replayer.run();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        replayer.stop();
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertTrue(released.size() < messages.size());
+    }
+
+    @Test
+    void messageReplayerThrowsOnInvalidSpeed() {
+        var replayer = new MessageReplayer(new ListSource(List.of()), m -> {});
+        assertThrows(IllegalArgumentException.class, () -> replayer.setSpeed(0));
+        assertThrows(IllegalArgumentException.class, () -> replayer.setSpeed(-1));
+    }
+}
@@ -0,0 +1,57 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawMessageReaderTest {
+
+    @Test
+    void rawMessageReaderReadsAllRecordedMessages() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        var expected = new ArrayList<RawMessage>();
+        var bytes = new ByteArrayOutputStream();
+        var stream = new DataOutputStream(bytes);
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var messageBytes = new byte[RawMessage.LENGTH];
+            rng.nextBytes(messageBytes);
+            var timeStampNs = rng.nextLong(Long.MAX_VALUE);
+            stream.writeLong(timeStampNs);
+            stream.write(messageBytes);
+            expected.add(new RawMessage(timeStampNs, new ByteString(messageBytes)));
+        }
+
+        try (var reader = new RawMessageReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (var message : expected) assertEquals(message, reader.nextMessage());
+            assertNull(reader.nextMessage());
+        }
+    }
+
+    @Test
+    void rawMessageReaderIgnoresTruncatedLastMessage() throws IOException {
+        var bytes = new byte[2 * RawMessageReader.RECORD_SIZE - 1];
+        Arrays.fill(bytes, (byte) 0x11);
+        try (var reader = new RawMessageReader(new ByteArrayInputStream(bytes))) {
+            var message = reader.nextMessage();
+            assertEquals(0x1111_1111_1111_1111L, message.timeStampNs());
+            assertEquals(0x1111_1111_1111L, message.low());
+            assertNull(reader.nextMessage());
+        }
+    }
+
+    @Test
+    void rawMessageReaderWorksOnEmptyStream() throws IOException {
+        try (var reader = new RawMessageReader(new ByteArrayInputStream(new byte[0]))) {
+            assertNull(reader.nextMessage());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ch.epfl.javions.adsb;
 
 import ch.epfl.javions.ByteString;
 import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -601,4 +602,44 @@ public class RawMessageTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void rawMessageOfLongsEqualsRawMessageOfBytes() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var chain = new byte[RawMessage.LENGTH];
+            rng.nextBytes(chain);
+            var timeStampNs = rng.nextLong(0, Long.MAX_VALUE);
+            var expected = new RawMessage(timeStampNs, new ByteString(chain));
+            var actual = new RawMessage(timeStampNs, expected.high(), expected.low());
+
+            assertEquals(expected, actual);
+            assertEquals(expected.hashCode(), actual.hashCode());
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(new ByteString(chain), actual.bytes());
+            assertEquals(expected.downLinkFormat(), actual.downLinkFormat());
+            assertEquals(expected.icaoAddress(), actual.icaoAddress());
+            assertEquals(expected.payload(), actual.payload());
+            assertEquals(expected.typeCode(), actual.typeCode());
+        }
+    }
+
+    @Test
+    void rawMessageAccessorsWorkOnKnownMessage() {
+        var rawMessage = new RawMessage(100, bytes);
+        assertEquals(0x8D4B17E5F8210002L, rawMessage.high());
+        assertEquals(0x004BB8B1F1ACL, rawMessage.low());
+        assertEquals(17, rawMessage.downLinkFormat());
+        assertEquals(new IcaoAddress("4B17E5"), rawMessage.icaoAddress());
+        assertEquals(0xF8210002004BB8L, rawMessage.payload());
+        assertEquals(31, rawMessage.typeCode());
+        assertEquals("RawMessage[timeStampNs=100, bytes=8D4B17E5F8210002004BB8B1F1AC]",
+                rawMessage.toString());
+    }
+
+    @Test
+    void rawMessageOfLongsThrowsOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RawMessage(-1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RawMessage(0, 0, 1L << 48));
+    }
+}
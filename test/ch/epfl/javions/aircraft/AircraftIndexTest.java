@@ -0,0 +1,200 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AircraftIndexTest {
+
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+    private static final String[] CATEGORIES = {"L", "M", "H", ""};
+
+    private static String databaseFile(List<String> lines) throws IOException {
+        var file = Files.createTempFile("aircraft", ".zip").toFile();
+        file.deleteOnExit();
+        try (var zip = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 256; i += 1) {
+                var suffix = HEX.toHexDigits((byte) i);
+                zip.putNextEntry(new ZipEntry(suffix + ".csv"));
+                for (var line : lines) {
+                    if (line.startsWith(suffix, 4)) zip.write((line + "\n").getBytes(UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return file.getPath();
+    }
+
+    private static List<String> randomLines(int count) {
+        var rng = TestRandomizer.newRandom();
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < count; i += 1) {
+            lines.add(HEX.toHexDigits(rng.nextInt(1 << 24), 6)
+                    + ",HB-J" + (char) ('A' + rng.nextInt(26)) + (char) ('A' + rng.nextInt(26))
+                    + ",A" + rng.nextInt(100, 1000)
+                    + ",MODÈLE " + rng.nextInt(1000)
+                    + ",L" + rng.nextInt(1, 5) + "J"
+                    + "," + CATEGORIES[rng.nextInt(CATEGORIES.length)]);
+        }
+        return lines;
+    }
+
+    @Test
+    void aircraftIndexReturnsSameDataAsDatabaseFile() throws IOException {
+        var lines = randomLines(2_000);
+        var fileName = databaseFile(lines);
+        var database = new AircraftDatabase(fileName);
+        var index = AircraftIndex.load(fileName);
+        assertEquals(lines.size(), index.size());
+        assertTrue(index.loadTimeNs() > 0);
+        assertTrue(index.footprintBytes() > 0);
+
+        var rng = TestRandomizer.newRandom();
+        for (var line : lines) {
+            var address = new IcaoAddress(line.substring(0, 6));
+            assertEquals(database.get(address), index.get(address));
+        }
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var address = IcaoAddress.of(rng.nextInt(1 << 24));
+            assertEquals(database.get(address), index.get(address));
+        }
+    }
+
+    @Test
+    void aircraftDatabaseUsesIndexOnceLoaded() throws IOException {
+        var fileName = databaseFile(List.of("4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M"));
+        var database = new AircraftDatabase(fileName);
+        var expected = new AircraftData(new AircraftRegistration("HB-JDC"),
+                new AircraftTypeDesignator("A20N"), "AIRBUS A-320neo",
+                new AircraftDescription("L2J"), WakeTurbulenceCategory.MEDIUM);
+        assertEquals(1, database.load().size());
+        Files.delete(Path.of(fileName));
+        assertEquals(expected, database.get(new IcaoAddress("4B1814")));
+        assertNull(database.get(new IcaoAddress("4B1815")));
+    }
+
+    @Test
+    void aircraftIndexMapsCompiledFileWithSameData() throws IOException {
+        var lines = randomLines(2_000);
+        var fileName = databaseFile(lines);
+        var compiled = Files.createTempFile("aircraft", ".bin");
+        Files.delete(compiled);
+        var checksum = AircraftIndex.checksum(Path.of(fileName));
+        assertNull(AircraftIndex.map(compiled, checksum));
+
+        var index = AircraftIndex.load(fileName);
+        index.write(compiled, checksum);
+        var mapped = AircraftIndex.map(compiled, checksum);
+        assertNotNull(mapped);
+        assertEquals(index.size(), mapped.size());
+        assertEquals(index.footprintBytes(), mapped.footprintBytes());
+
+        var rng = TestRandomizer.newRandom();
+        for (var line : lines) {
+            var address = new IcaoAddress(line.substring(0, 6));
+            assertEquals(index.get(address), mapped.get(address));
+        }
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var address = IcaoAddress.of(rng.nextInt(1 << 24));
+            assertEquals(index.get(address), mapped.get(address));
+        }
+        Files.delete(compiled);
+    }
+
+    @Test
+    void aircraftIndexDoesNotMapStaleOrCorruptCompiledFile() throws IOException {
+        var fileName = databaseFile(randomLines(100));
+        var compiled = Files.createTempFile("aircraft", ".bin");
+        var checksum = AircraftIndex.checksum(Path.of(fileName));
+        assertNull(AircraftIndex.map(compiled, checksum));
+
+        AircraftIndex.load(fileName).write(compiled, checksum);
+        assertNull(AircraftIndex.map(compiled, checksum + 1));
+
+        var bytes = Files.readAllBytes(compiled);
+        Files.write(compiled, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(AircraftIndex.map(compiled, checksum));
+        bytes[0] += 1;
+        Files.write(compiled, bytes);
+        assertNull(AircraftIndex.map(compiled, checksum));
+        Files.delete(compiled);
+    }
+
+    @Test
+    void aircraftIndexDoesNotMapCompiledFileWithZeroFilledOrTornBody() throws IOException {
+        var fileName = databaseFile(randomLines(100));
+        var compiled = Files.createTempFile("aircraft", ".bin");
+        var checksum = AircraftIndex.checksum(Path.of(fileName));
+        AircraftIndex.load(fileName).write(compiled, checksum);
+        var bytes = Files.readAllBytes(compiled);
+        var headerSize = 4 * Integer.BYTES + 2 * Long.BYTES;
+
+        var zeroFilled = bytes.clone();
+        Arrays.fill(zeroFilled, headerSize, zeroFilled.length, (byte) 0);
+        Files.write(compiled, zeroFilled);
+        assertNull(AircraftIndex.map(compiled, checksum));
+
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var torn = bytes.clone();
+            Arrays.fill(torn, rng.nextInt(headerSize, torn.length), torn.length, (byte) 0);
+            if (Arrays.equals(torn, bytes)) continue;
+            Files.write(compiled, torn);
+            assertNull(AircraftIndex.map(compiled, checksum));
+        }
+
+        Files.write(compiled, bytes);
+        assertNotNull(AircraftIndex.map(compiled, checksum));
+        Files.delete(compiled);
+    }
+
+    @Test
+    void aircraftDatabaseLoadsIndexWhenCompiledFileCannotBeWritten() throws IOException {
+        var directory = Files.createTempDirectory("aircraft");
+        var compiled = directory.resolve("missing").resolve("aircraft.bin");
+        var database = new AircraftDatabase(
+                databaseFile(List.of("4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M")));
+        assertEquals(1, database.load(compiled).size());
+        assertFalse(Files.exists(compiled));
+        assertNotNull(database.get(new IcaoAddress("4B1814")));
+        Files.delete(directory);
+    }
+
+    @Test
+    void aircraftDatabaseRecompilesStaleCompiledFile() throws IOException {
+        var compiled = Files.createTempFile("aircraft", ".bin");
+        Files.delete(compiled);
+        var first = databaseFile(List.of("4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M"));
+        assertEquals(1, new AircraftDatabase(first).load(compiled).size());
+        var modified = Files.getLastModifiedTime(compiled);
+
+        var database = new AircraftDatabase(first);
+        assertEquals(1, database.load(compiled).size());
+        assertEquals(modified, Files.getLastModifiedTime(compiled));
+        Files.delete(Path.of(first));
+        assertNotNull(database.get(new IcaoAddress("4B1814")));
+
+        var second = databaseFile(List.of(
+                "4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M",
+                "4B1815,HB-JDD,A20N,AIRBUS A-320neo,L2J,M"));
+        database = new AircraftDatabase(second);
+        assertEquals(2, database.load(compiled).size());
+        var checksum = AircraftIndex.checksum(Path.of(second));
+        assertEquals(2, AircraftIndex.map(compiled, checksum).size());
+        assertNotNull(database.get(new IcaoAddress("4B1815")));
+        Files.delete(compiled);
+    }
+}
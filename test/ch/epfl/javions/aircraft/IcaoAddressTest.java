@@ -1,5 +1,6 @@
 package ch.epfl.javions.aircraft;
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -80,4 +81,46 @@ public class IcaoAddressTest {
             new IcaoAddress("ABCDEF");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void icaoAddressOfReturnsSameInstanceForSameValue() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var value = rng.nextInt(1 << 24);
+            assertSame(IcaoAddress.of(value), IcaoAddress.of(value));
+        }
+    }
+
+    @Test
+    void icaoAddressOfEqualsIcaoAddressOfString() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var value = rng.nextInt(1 << 24);
+            var string = String.format("%06X", value);
+            var expected = new IcaoAddress(string);
+            var actual = IcaoAddress.of(value);
+            assertEquals(expected, actual);
+            assertEquals(expected.hashCode(), actual.hashCode());
+            assertEquals(string, actual.string());
+            assertEquals(value, expected.value());
+            assertEquals("IcaoAddress[string=" + string + "]", actual.toString());
+        }
+    }
+
+    @Test
+    void icaoAddressOfStillWorksAfterAddressesAreEvicted() {
+        var first = IcaoAddress.of(0x4B1814);
+        for (int value = 0; value < 1 << 16; value += 1) {
+            assertEquals(value, IcaoAddress.of(value).value());
+        }
+        var again = IcaoAddress.of(0x4B1814);
+        assertEquals(first, again);
+        assertSame(again, IcaoAddress.of(0x4B1814));
+    }
+
+    @Test
+    void icaoAddressOfThrowsOnInvalidValue() {
+        assertThrows(IllegalArgumentException.class, () -> IcaoAddress.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> IcaoAddress.of(1 << 24));
+    }
+}
@@ -421,7 +421,7 @@ public class AdsbDemodulatorTest {
     //</editor-fold>
 
     //<editor-fold desc="Message samples">
-    private static final String SAMPLES_BASE64 = """
+    static final String SAMPLES_BASE64 = """
             8AfzB/QH+gfqB/MH8wfyB+sH+Qf1B/QH+Qf6B+4H7gf2B/MH8wf9B+0H7wfxB/oH7Qf8B/QH/Af3B+0H
             8Af2B/IH6gf1B/kH9QfvB/EH+wfyB/gH+Qf1B+gH8Qf2B+QH/wf5BwQI8gf3B+kH/QftB/QH+QfwB/EH
             /gf5B/cH+AfuB/UH6QfyB/IH8wfvB+0H8Qf8B+wH8Qf6B/kH8Qf5B+0HAAj6BwAI9gf4B/QH6wf7B+wH
@@ -585,4 +585,43 @@ public class AdsbDemodulatorTest {
             assertNull(demodulator.nextMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void adsbDemodulatorNextMessagesFindsSameMessagesAsNextMessage() throws IOException {
+        var tiny = Base64.getMimeDecoder().decode(SAMPLES_BASE64);
+        var rng = TestRandomizer.newRandom();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i += 1) {
+            var noise = rng.nextInt(5_000);
+            for (int j = 0; j < noise; j += 1) {
+                var sample = 2048 + rng.nextInt(-20, 20);
+                stream.write(sample);
+                stream.write(sample >> 8);
+            }
+            stream.writeBytes(tiny);
+        }
+        var bytes = stream.toByteArray();
+
+        var expected = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        var actual = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        var batch = new MessageBatch(3);
+        var count = 0;
+        int size;
+        while ((size = actual.nextMessages(batch)) > 0) {
+            assertEquals(batch.size(), size);
+            for (int i = 0; i < size; i += 1) {
+                assertEquals(expected.nextMessage(), batch.rawMessage(i));
+                count += 1;
+            }
+        }
+        assertEquals(10, count);
+        assertNull(expected.nextMessage());
+        assertEquals(0, batch.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.timeStampNs(0));
+    }
+
+    @Test
+    void messageBatchConstructorThrowsOnInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageBatch(0));
+    }
+}
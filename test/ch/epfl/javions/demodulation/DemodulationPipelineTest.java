@@ -0,0 +1,249 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.ErrorCorrector;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.adsb.MessageParser;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemodulationPipelineTest {
+
+    @Test
+    void demodulationPipelineFindsSameMessagesAsAdsbDemodulator() throws IOException {
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var rng = TestRandomizer.newRandom();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 40; i += 1) {
+            var noise = rng.nextInt(20_000);
+            for (int j = 0; j < noise; j += 1) {
+                var sample = 2048 + rng.nextInt(-20, 20);
+                stream.write(sample);
+                stream.write(sample >> 8);
+            }
+            stream.writeBytes(tiny);
+        }
+        var bytes = stream.toByteArray();
+
+        var expected = new ArrayList<Message>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        RawMessage rawMessage;
+        while ((rawMessage = demodulator.nextMessage()) != null) {
+            var message = MessageParser.parse(rawMessage);
+            if (message != null) expected.add(message);
+        }
+        assertEquals(40, expected.size());
+
+        var actual = new ArrayList<Message>();
+        var pipeline = new DemodulationPipeline(new ByteArrayInputStream(bytes), actual::add);
+        pipeline.run();
+        assertEquals(0, pipeline.readOverflows());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void demodulationPipelineCorrectsMessagesWithCorrector() throws IOException {
+        // Le bit 41 du message de l'échantillon, à la position 141, est inversé en échangeant
+        // les échantillons dont dépend la puissance de ses deux moitiés
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var bitByte = 2 * Short.BYTES * (141 + 80 + 10 * 41) 
+                - Short.BYTES * (PowerComputer.FILTER_SIZE - 2);
+        var firstHalf = Arrays.copyOfRange(tiny, bitByte, bitByte + 20);
+        System.arraycopy(tiny, bitByte + 20, tiny, bitByte, 20);
+        System.arraycopy(firstHalf, 0, tiny, bitByte + 20, 20);
+        var rng = TestRandomizer.newRandom();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 40; i += 1) {
+            writeNoise(stream, rng, rng.nextInt(20_000));
+            stream.writeBytes(tiny);
+        }
+        var bytes = stream.toByteArray();
+
+        var uncorrected = new ArrayList<Message>();
+        new DemodulationPipeline(new ByteArrayInputStream(bytes), uncorrected::add).run();
+        assertEquals(List.of(), uncorrected);
+
+        var expected = new ArrayList<Message>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes),
+                new ErrorCorrector(1));
+        RawMessage rawMessage;
+        while ((rawMessage = demodulator.nextMessage()) != null) {
+            var message = MessageParser.parse(rawMessage);
+            if (message != null) expected.add(message);
+        }
+        assertEquals(40, expected.size());
+
+        var actual = new ArrayList<Message>();
+        var pipeline = new DemodulationPipeline(new ByteArrayInputStream(bytes), actual::add,
+                new ErrorCorrector(1));
+        pipeline.run();
+        assertEquals(expected, actual);
+        assertEquals(40, pipeline.singleBitCorrections());
+        assertEquals(0, pipeline.doubleBitCorrections());
+    }
+
+    @Test
+    void demodulationPipelinePassesEveryRawMessageToRawConsumerBeforeParsingIt()
+            throws IOException {
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var rng = TestRandomizer.newRandom();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i += 1) {
+            writeNoise(stream, rng, rng.nextInt(20_000));
+            stream.writeBytes(tiny);
+        }
+        var bytes = stream.toByteArray();
+
+        var expected = new ArrayList<RawMessage>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        RawMessage rawMessage;
+        while ((rawMessage = demodulator.nextMessage()) != null) expected.add(rawMessage);
+
+        var events = new ArrayList<Object>();
+        new DemodulationPipeline(new ByteArrayInputStream(bytes), events::add, null,
+                events::add).run();
+        assertEquals(2 * expected.size(), events.size());
+        for (int i = 0; i < expected.size(); i += 1) {
+            assertEquals(expected.get(i), events.get(2 * i));
+            assertEquals(MessageParser.parse(expected.get(i)), events.get(2 * i + 1));
+        }
+    }
+
+    @Test
+    void demodulationPipelineReportsRawConsumerErrors() {
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var pipeline = new DemodulationPipeline(new ByteArrayInputStream(tiny), m -> {}, null,
+                m -> {
+                    throw new UncheckedIOException(new IOException());
+                });
+        assertThrows(IOException.class, pipeline::run);
+    }
+
+    @Test
+    void demodulationPipelineWorksOnEmptyStream() throws IOException {
+        var actual = new ArrayList<Message>();
+        new DemodulationPipeline(InputStream.nullInputStream(), actual::add).run();
+        assertEquals(List.of(), actual);
+    }
+
+    @Test
+    void demodulationPipelineReportsReadErrors() {
+        var stream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException();
+            }
+        };
+        var pipeline = new DemodulationPipeline(stream, m -> {});
+        assertThrows(IOException.class, pipeline::run);
+    }
+
+    @Test
+    void demodulationPipelineKeepsTimeStampsExactAfterDroppedBatches() throws Exception {
+        var batchBytes = 4 * PowerWindow.BATCH_SIZE;
+        var gapEnd = 100 * batchBytes;
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var rng = TestRandomizer.newRandom();
+        var stream = new ByteArrayOutputStream();
+        // Plus de messages que n'en contient la file de l'étage d'analyse, de sorte que tous les
+        // étages soient bloqués par le consommateur et que l'étage de lecture abandonne des lots
+        for (int i = 0; i < 1_100; i += 1) {
+            writeNoise(stream, rng, 100);
+            stream.writeBytes(tiny);
+        }
+        writeNoise(stream, rng, (gapEnd - stream.size()) / 2);
+        // Le lot lu au moment où le flot est débloqué est encore abandonné, l'anneau étant plein
+        writeNoise(stream, rng, batchBytes / 2 + 10_000);
+        stream.writeBytes(tiny);
+        writeNoise(stream, rng, batchBytes / 2);
+        var bytes = stream.toByteArray();
+
+        var expected = new ArrayList<Message>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        RawMessage rawMessage;
+        while ((rawMessage = demodulator.nextMessage()) != null) {
+            var message = MessageParser.parse(rawMessage);
+            if (message != null) expected.add(message);
+        }
+        assertEquals(1_101, expected.size());
+
+        var gapReached = new CountDownLatch(1);
+        var released = new CountDownLatch(1);
+        var actual = new CopyOnWriteArrayList<Message>();
+        var input = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position == bytes.length) return -1;
+                if (position == gapEnd) {
+                    gapReached.countDown();
+                    await(released);
+                    // Le reste du flot est fourni lentement, une fois les étages vidés
+                    for (int i = 0; i < 100 && actual.size() < 1_100; i += 1) sleep();
+                    for (int i = 0; i < 3; i += 1) sleep();
+                }
+                var end = position < gapEnd ? gapEnd : bytes.length;
+                var count = Math.min(len, end - position);
+                System.arraycopy(bytes, position, b, off, count);
+                position += count;
+                return count;
+            }
+        };
+        var pipeline = new DemodulationPipeline(input, m -> {
+            if (actual.isEmpty()) {
+                await(gapReached);
+                released.countDown();
+            }
+            actual.add(m);
+        });
+        pipeline.run();
+        assertTrue(pipeline.readOverflows() > 0);
+        assertEquals(expected, actual);
+    }
+
+    private static void writeNoise(ByteArrayOutputStream stream, RandomGenerator rng, int count) {
+        for (int j = 0; j < count; j += 1) {
+            var sample = 2048 + rng.nextInt(-20, 20);
+            stream.write(sample);
+            stream.write(sample >> 8);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
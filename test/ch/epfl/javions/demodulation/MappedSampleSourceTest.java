@@ -0,0 +1,64 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSampleSourceTest {
+
+    private static Path tempFile(byte[] bytes) throws IOException {
+        Path path = Files.createTempFile("samples", ".bin");
+        path.toFile().deleteOnExit();
+        return Files.write(path, bytes);
+    }
+
+    @Test
+    void mappedSampleSourceReadsSameSamplesAsSamplesDecoder() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        var bytes = new byte[4096 * Short.BYTES + 1];
+        rng.nextBytes(bytes);
+
+        var mapped = new MappedSampleSource(tempFile(bytes));
+        var decoder = new SamplesDecoder(new ByteArrayInputStream(bytes), 1000);
+        var expected = new short[1000];
+        var actual = new short[1000];
+        for (int i = 0; i < 5; i++) {
+            int count = decoder.readBatch(expected);
+            assertEquals(count, mapped.readBatch(actual));
+            for (int j = 0; j < count; j++) assertEquals(expected[j], actual[j]);
+        }
+        assertEquals(0, mapped.readBatch(actual));
+    }
+
+    @Test
+    void mappedSampleSourceWorksOnEmptyFile() throws IOException {
+        var mapped = new MappedSampleSource(tempFile(new byte[0]));
+        assertEquals(0, mapped.readBatch(new short[16]));
+    }
+
+    @Test
+    void adsbDemodulatorFindsSameMessagesOnMappedFile() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        var bytes = new byte[1 << 18];
+        for (int i = 0; i < bytes.length; i += 2) {
+            var sample = rng.nextInt(1 << 12);
+            bytes[i] = (byte) sample;
+            bytes[i + 1] = (byte) (sample >> 8);
+        }
+
+        var expected = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        var actual = new AdsbDemodulator(new MappedSampleSource(tempFile(bytes)));
+        var message = expected.nextMessage();
+        while (message != null) {
+            assertEquals(message, actual.nextMessage());
+            message = expected.nextMessage();
+        }
+        assertNull(actual.nextMessage());
+    }
+}
@@ -0,0 +1,106 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelDemodulatorTest {
+
+    private static byte[] samplesWithMessages() {
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var rng = TestRandomizer.newRandom();
+        var bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i += 1) {
+            var noise = rng.nextInt(3000);
+            for (int j = 0; j < noise; j += 1) {
+                var sample = 2048 + rng.nextInt(-20, 20);
+                bytes.write(sample);
+                bytes.write(sample >> 8);
+            }
+            bytes.writeBytes(tiny);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void parallelDemodulatorFindsSameMessagesAsAdsbDemodulator() throws IOException {
+        var bytes = samplesWithMessages();
+        var path = Files.createTempFile("samples", ".bin");
+        path.toFile().deleteOnExit();
+        Files.write(path, bytes);
+
+        var expected = new ArrayList<RawMessage>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes));
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null) expected.add(message);
+        assertEquals(50, expected.size());
+
+        for (var chunkSize : new int[]{1000, 1201, 4567, 1 << 22}) {
+            List<RawMessage> actual =
+                    ParallelDemodulator.demodulate(path, ForkJoinPool.commonPool(), chunkSize);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void parallelDemodulatorFindsSameMessagesAsAdsbDemodulatorAcrossEverySeam()
+            throws IOException {
+        // Deux copies du premier message de l'échantillon (position 141), précédé de quelques
+        // échantillons, la seconde commençant exactement à la fin de la première, et des
+        // tranches commençant à chaque position jusqu'à la seconde
+        var tiny = Base64.getMimeDecoder().decode(AdsbDemodulatorTest.SAMPLES_BASE64);
+        var messagePosition = 138;
+        var messageBytes = AdsbDemodulator.POWER_WINDOW_SIZE * 2 * Short.BYTES;
+        var noisePositions = 2_000;
+        var rng = TestRandomizer.newRandom();
+        var bytes = new ByteArrayOutputStream();
+        for (int copy = 0; copy < 2; copy += 1) {
+            for (int j = 0; j < (copy == 0 ? 2 * noisePositions : 0); j += 1) {
+                var sample = 2048 + rng.nextInt(-20, 20);
+                bytes.write(sample);
+                bytes.write(sample >> 8);
+            }
+            bytes.write(tiny, 2 * Short.BYTES * messagePosition, messageBytes);
+        }
+        for (int j = 0; j < 6_000; j += 1) {
+            var sample = 2048 + rng.nextInt(-20, 20);
+            bytes.write(sample);
+            bytes.write(sample >> 8);
+        }
+        var path = Files.createTempFile("samples", ".bin");
+        path.toFile().deleteOnExit();
+        Files.write(path, bytes.toByteArray());
+
+        var expected = new ArrayList<RawMessage>();
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(bytes.toByteArray()));
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null) expected.add(message);
+        assertEquals(2, expected.size());
+
+        for (int chunkSize = noisePositions - 2;
+             chunkSize <= noisePositions + AdsbDemodulator.POWER_WINDOW_SIZE + 2;
+             chunkSize += 1) {
+            assertEquals(expected,
+                    ParallelDemodulator.demodulate(path, ForkJoinPool.commonPool(), chunkSize));
+        }
+    }
+
+    @Test
+    void parallelDemodulatorWorksOnEmptyFile() throws IOException {
+        var path = Files.createTempFile("samples", ".bin");
+        path.toFile().deleteOnExit();
+        assertEquals(List.of(), ParallelDemodulator.demodulate(path));
+    }
+}
@@ -1,6 +1,7 @@
 package ch.epfl.javions.demodulation;
 
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 import java.io.*;
 import java.net.URLDecoder;
@@ -400,6 +401,36 @@ public class PowerComputerTest {
     }
 
 
+    @Test
+    void powerComputerMatchesDefinitionAcrossBatches() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        var bytes = new byte[2 * 16 * 37 + 6];
+        rng.nextBytes(bytes);
+        for (int i = 1; i < bytes.length / 2; i += 2) bytes[i] &= 0x0F;
+
+        var window = new int[8];
+        var expected = new int[bytes.length / 4];
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < 2; j++) {
+                int k = 2 * i + j;
+                int sample = ((bytes[2 * k + 1] & 0xFF) << 8 | (bytes[2 * k] & 0xFF)) - 2048;
+                window[k % 8] = (short) sample;
+            }
+            expected[i] = (int) (Math.pow(window[0] - window[2] + window[4] - window[6], 2)
+                    + Math.pow(window[1] - window[3] + window[5] - window[7], 2));
+        }
+
+        var powerComputer = new PowerComputer(new ByteArrayInputStream(bytes), 16);
+        var batch = new int[16];
+        int offset = 0;
+        int read;
+        while ((read = powerComputer.readBatch(batch)) > 0) {
+            for (int i = 0; i < read; i++) assertEquals(expected[offset + i], batch[i]);
+            offset += read;
+        }
+        assertEquals(expected.length, offset);
+    }
+
     /*@Test
     void testValidPowerComputer() throws IOException {
         String stream2 = getClass().getResource("/samples.bin").getFile();
@@ -12,6 +12,7 @@ import java.util.Base64;
 import java.util.List;
 
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 class PowerWindowTest {
@@ -503,6 +504,30 @@ class PowerWindowTest {
             }
         }
     }
+
+    @Test
+    void powerWindowAdvanceByMatchesRepeatedAdvance() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        var bytes = new byte[5 * 4 * (1 << 16) + 1234];
+        for (int i = 0; i < bytes.length; i += 2) {
+            var sample = rng.nextInt(1 << 12);
+            bytes[i] = (byte) sample;
+            if (i + 1 < bytes.length) bytes[i + 1] = (byte) (sample >> 8);
+        }
+
+        var windowSize = 1200;
+        var jumping = new PowerWindow(new ByteArrayInputStream(bytes), windowSize);
+        var stepping = new PowerWindow(new ByteArrayInputStream(bytes), windowSize);
+        for (var offset : new int[]{0, 1199, 70_000, 3, 150_000, 65_536, 1, 200_000}) {
+            jumping.advanceBy(offset);
+            for (int i = 0; i < offset; i += 1) stepping.advance();
+            assertEquals(stepping.position(), jumping.position());
+            assertEquals(stepping.isFull(), jumping.isFull());
+            if (stepping.isFull()) {
+                for (int i = 0; i < windowSize; i += 1) assertEquals(stepping.get(i), jumping.get(i));
+            }
+        }
+    }
 }
 /*
     @Test
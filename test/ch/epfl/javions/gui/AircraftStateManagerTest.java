@@ -2,19 +2,29 @@ package ch.epfl.javions.gui;
 
 import ch.epfl.javions.ByteString;
 import ch.epfl.javions.Units;
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.adsb.AircraftIdentificationMessage;
+import ch.epfl.javions.adsb.CallSign;
 import ch.epfl.javions.adsb.Message;
 import ch.epfl.javions.adsb.MessageParser;
 import ch.epfl.javions.adsb.RawMessage;
 import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.IcaoAddress;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
 import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class AircraftStateManagerTest {
     private static class AddressComparator
@@ -102,4 +112,158 @@ public class AircraftStateManagerTest {
 /* nothing to do */
  } catch (InterruptedException e) {throw new RuntimeException(e);}
     }
-}
\ No newline at end of file
+
+    private static final long SECOND_NS = Duration.ofSeconds(1).toNanos();
+
+    private static AircraftDatabase database(String... lines) throws IOException {
+        var file = Files.createTempFile("aircraft", ".zip").toFile();
+        file.deleteOnExit();
+        try (var zip = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 256; i += 1) {
+                var suffix = HexFormat.of().withUpperCase().toHexDigits((byte) i);
+                zip.putNextEntry(new ZipEntry(suffix + ".csv"));
+                for (var line : lines) {
+                    if (line.startsWith(suffix, 4)) zip.write((line + "\n").getBytes(UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return new AircraftDatabase(file.getPath());
+    }
+
+    private static AircraftDatabase emptyDatabase() throws IOException {
+        return database();
+    }
+
+    private static void sendPosition(AircraftStateManager manager, IcaoAddress address,
+                                     long timeStampNs) throws IOException {
+        manager.updateWithMessage(
+                new AirbornePositionMessage(timeStampNs, address, 1_000, 0, 0, 0));
+        manager.updateWithMessage(
+                new AirbornePositionMessage(timeStampNs + 1, address, 1_000, 1, 0, 0));
+    }
+
+    private static void sendIdentification(AircraftStateManager manager, IcaoAddress address,
+                                           long timeStampNs) throws IOException {
+        manager.updateWithMessage(new AircraftIdentificationMessage(timeStampNs, address, 0xA3,
+                new CallSign("HBJDC")));
+    }
+
+    @Test
+    void aircraftStateManagerPurgeRemovesExpiredStatesOnly() throws IOException {
+        var manager = new AircraftStateManager(emptyDatabase());
+        var first = IcaoAddress.of(0x4B1814);
+        var second = IcaoAddress.of(0x4B1815);
+        sendPosition(manager, first, 0);
+        sendPosition(manager, second, 30 * SECOND_NS);
+        assertEquals(2, manager.states().size());
+
+        sendIdentification(manager, second, 61 * SECOND_NS);
+        manager.purge();
+        assertEquals(1, manager.states().size());
+        assertEquals(second, manager.states().iterator().next().getIcaoAddress());
+        assertEquals(1, manager.expiredStates());
+        assertEquals(2, manager.aircraftCount());
+        assertEquals(0, manager.expiredAircraft());
+
+        sendPosition(manager, first, 62 * SECOND_NS);
+        assertEquals(2, manager.states().size());
+    }
+
+    @Test
+    void aircraftStateManagerPurgeForgetsExpiredAircraft() throws IOException {
+        var manager = new AircraftStateManager(emptyDatabase(),
+                Duration.ofMinutes(1), Duration.ofMinutes(5));
+        for (int i = 0; i < 1_000; i += 1) {
+            sendIdentification(manager, IcaoAddress.of(i), i * SECOND_NS / 10);
+        }
+        var address = IcaoAddress.of(0xABCDEF);
+        sendPosition(manager, address, 0);
+        assertEquals(1_001, manager.aircraftCount());
+
+        sendIdentification(manager, IcaoAddress.of(999), 1_200 * SECOND_NS);
+        manager.purge();
+        assertEquals(0, manager.states().size());
+        assertEquals(1, manager.expiredStates());
+        assertEquals(1, manager.aircraftCount());
+        assertEquals(1_000, manager.expiredAircraft());
+
+        sendIdentification(manager, address, 1_201 * SECOND_NS);
+        assertEquals(2, manager.aircraftCount());
+        assertEquals(0, manager.states().size());
+    }
+
+    @Test
+    void aircraftStateManagerThrowsOnInvalidLifetimes() throws IOException {
+        var database = emptyDatabase();
+        assertThrows(IllegalArgumentException.class, () -> new AircraftStateManager(database,
+                Duration.ofMinutes(2), Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new AircraftStateManager(database,
+                Duration.ofMinutes(-1), Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void aircraftStateManagerLooksUpAircraftDataAsynchronously() throws IOException {
+        var lookups = new ArrayList<Runnable>();
+        var manager = new AircraftStateManager(
+                database("4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M"),
+                Duration.ofMinutes(1), Duration.ofMinutes(1), lookups::add);
+        var address = IcaoAddress.of(0x4B1814);
+        sendPosition(manager, address, 0);
+        var state = manager.states().iterator().next();
+        assertNull(state.getAircraftData());
+        assertEquals(1, lookups.size());
+
+        lookups.get(0).run();
+        assertNull(state.getAircraftData());
+        sendIdentification(manager, address, 2);
+        assertEquals("HB-JDC", state.getAircraftData().registration().string());
+        assertEquals(1, lookups.size());
+    }
+
+    @Test
+    void aircraftStateManagerDoesNotDuplicatePendingLookups() throws IOException {
+        var lookups = new ArrayList<Runnable>();
+        var manager = new AircraftStateManager(
+                database("4B1814,HB-JDC,A20N,AIRBUS A-320neo,L2J,M"),
+                Duration.ZERO, Duration.ZERO, lookups::add);
+        var address = IcaoAddress.of(0x4B1814);
+        sendIdentification(manager, address, 0);
+        sendIdentification(manager, IcaoAddress.of(0x123456), SECOND_NS);
+        manager.purge();
+        assertEquals(1, manager.aircraftCount());
+
+        sendPosition(manager, address, 2 * SECOND_NS);
+        assertEquals(2, manager.aircraftCount());
+        assertEquals(2, lookups.size());
+
+        lookups.forEach(Runnable::run);
+        sendIdentification(manager, address, 3 * SECOND_NS);
+        var state = manager.states().iterator().next();
+        assertEquals("HB-JDC", state.getAircraftData().registration().string());
+    }
+
+    @Test
+    void aircraftStateManagerReportsAnyLookupFailureAfterApplyingMessage() throws IOException {
+        var lookups = new ArrayList<Runnable>();
+        var manager = new AircraftStateManager(
+                database("4B1814,hb-jdc,A20N,AIRBUS A-320neo,L2J,M"),
+                Duration.ZERO, Duration.ZERO, lookups::add);
+        var address = IcaoAddress.of(0x4B1814);
+        sendPosition(manager, address, 0);
+        var state = manager.states().iterator().next();
+        assertEquals(1, lookups.size());
+
+        lookups.get(0).run();
+        var exception = assertThrows(IOException.class,
+                () -> sendIdentification(manager, address, SECOND_NS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals(SECOND_NS, state.getLastMessageTimeStampNs());
+        assertNull(state.getAircraftData());
+
+        sendIdentification(manager, IcaoAddress.of(0x123456), 2 * SECOND_NS);
+        manager.purge();
+        sendIdentification(manager, address, 3 * SECOND_NS);
+        assertEquals(3, lookups.size());
+    }
+}
@@ -0,0 +1,63 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IcaoAddressTableTest {
+
+    @Test
+    void icaoAddressTableBehavesLikeHashMap() {
+        var rng = TestRandomizer.newRandom();
+        var table = new IcaoAddressTable<Integer>();
+        var expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 50 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var address = rng.nextInt(1 << 16) << 8;
+            assertEquals(expected.get(address), table.get(address));
+            table.put(address, i);
+            expected.put(address, i);
+        }
+        assertEquals(expected.size(), table.size());
+        expected.forEach((address, value) -> assertEquals(value, table.get(address)));
+    }
+
+    @Test
+    void icaoAddressTableReturnsNullForUnknownAddress() {
+        var table = new IcaoAddressTable<String>();
+        table.put(0x4B1814, "HB-JDC");
+        assertNull(table.get(0x4B1815));
+        assertNull(table.get(0));
+        assertEquals("HB-JDC", table.get(0x4B1814));
+    }
+
+    @Test
+    void icaoAddressTablePutThrowsOnInvalidArguments() {
+        var table = new IcaoAddressTable<String>();
+        assertThrows(IllegalArgumentException.class, () -> table.put(1 << 24, "a"));
+        assertThrows(IllegalArgumentException.class, () -> table.put(-1, "a"));
+        assertThrows(NullPointerException.class, () -> table.put(0, null));
+    }
+
+    @Test
+    void icaoAddressTableRemoveBehavesLikeHashMap() {
+        var rng = TestRandomizer.newRandom();
+        var table = new IcaoAddressTable<Integer>();
+        var expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 50 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var address = rng.nextInt(1 << 12);
+            if (rng.nextBoolean()) {
+                assertEquals(expected.remove(address), table.remove(address));
+            } else {
+                table.put(address, i);
+                expected.put(address, i);
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (int address = 0; address < 1 << 12; address += 1) {
+            assertEquals(expected.get(address), table.get(address));
+        }
+    }
+}